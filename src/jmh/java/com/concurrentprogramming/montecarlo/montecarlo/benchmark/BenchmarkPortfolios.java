@@ -0,0 +1,25 @@
+package com.concurrentprogramming.montecarlo.montecarlo.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+final class BenchmarkPortfolios {
+
+    private BenchmarkPortfolios() {
+    }
+
+    // Equal weights for a "+"-separated ticker list, the form used by the tickers benchmark parameter (JMH splits
+    // parameter values on commas)
+    static Map<String, Double> equalWeights(String tickers) {
+        String[] symbols = tickers.split("\\+");
+        Map<String, Double> weights = new HashMap<>();
+        for (String symbol : symbols) {
+            weights.put(symbol.trim(), 1.0 / symbols.length);
+        }
+        return weights;
+    }
+
+    static String firstTicker(String tickers) {
+        return tickers.split("\\+")[0].trim();
+    }
+}
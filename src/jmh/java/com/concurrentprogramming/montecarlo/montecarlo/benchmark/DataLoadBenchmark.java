@@ -0,0 +1,66 @@
+package com.concurrentprogramming.montecarlo.montecarlo.benchmark;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.PriceSeries;
+import com.concurrentprogramming.montecarlo.montecarlo.model.StockDataCache;
+import com.concurrentprogramming.montecarlo.montecarlo.model.StockStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Historical data access: loading a ticker on a cache miss (its binary price store once imported, otherwise the CSV),
+// a cache hit, and building the log-return statistics. Must run from the project root, where the data directory
+// resolves.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class DataLoadBenchmark {
+
+    @Param({"AAPL", "MSFT"})
+    public String ticker;
+
+    private StockDataCache cache;
+    private PriceSeries series;
+    private int[] epochDays;
+    private double[] prices;
+
+    @Setup
+    public void setUp() {
+        cache = new StockDataCache(16, 60_000);
+        series = cache.get(ticker);
+        epochDays = new int[series.size()];
+        prices = new double[series.size()];
+        for (int i = 0; i < series.size(); i++) {
+            epochDays[i] = series.getEpochDay(i);
+            prices[i] = series.getPrice(i);
+        }
+    }
+
+    @Benchmark
+    public PriceSeries load() {
+        cache.invalidate(ticker);
+        return cache.get(ticker);
+    }
+
+    @Benchmark
+    public PriceSeries cacheHit() {
+        return cache.get(ticker);
+    }
+
+    @Benchmark
+    public StockStatistics statistics() {
+        return StockStatistics.fromPrices(ticker, series.getDataVersion(), epochDays, prices);
+    }
+}
@@ -0,0 +1,70 @@
+package com.concurrentprogramming.montecarlo.montecarlo.benchmark;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.MonteCarloSimulation;
+import com.concurrentprogramming.montecarlo.montecarlo.model.Portfolio;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationStreams;
+import com.concurrentprogramming.montecarlo.montecarlo.model.Stock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+// Cost of a single simulated path through each layer of the kernel, with reused buffers as in the engine
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PathBenchmark {
+
+    @Param({"AAPL", "AAPL+MSFT+GOOG+AMZN"})
+    public String tickers;
+
+    @Param({"30", "252"})
+    public int days;
+
+    private MonteCarloSimulation simulation;
+    private Stock stock;
+    private Portfolio portfolio;
+    private RandomGenerator random;
+    private double[] prices;
+    private double[] portfolioValues;
+    private double[] scratch;
+
+    @Setup
+    public void setUp() {
+        stock = new Stock(BenchmarkPortfolios.firstTicker(tickers));
+        simulation = new MonteCarloSimulation(stock.getStatistics());
+        portfolio = new Portfolio(10_000, BenchmarkPortfolios.equalWeights(tickers));
+        random = new SimulationStreams(42L, 1, 1).forChunk(0);
+        prices = new double[days + 1];
+        portfolioValues = new double[days + 1];
+        scratch = new double[portfolio.scratchLength(days)];
+    }
+
+    @Benchmark
+    public double[] monteCarloSimulation() {
+        return simulation.simulatePrices(stock.getLastPrice(), days, prices, random);
+    }
+
+    @Benchmark
+    public double[] stockSimulation() {
+        return stock.performSimulation(days, prices, random);
+    }
+
+    @Benchmark
+    public double[] portfolioSimulation() {
+        return portfolio.simulatePortfolio(days, portfolioValues, scratch, random);
+    }
+}
@@ -0,0 +1,73 @@
+package com.concurrentprogramming.montecarlo.montecarlo.benchmark;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.Portfolio;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationPool;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Whole runs as the service performs them: materialized (every path kept) and streaming (aggregates only), on the
+// calling thread and on the shared simulation pool sized by the threads parameter. The seed is fixed so every
+// iteration does identical work.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PortfolioRunBenchmark {
+    private static final long SEED = 42L;
+
+    @Param({"AAPL+MSFT+GOOG+AMZN"})
+    public String tickers;
+
+    @Param({"252"})
+    public int days;
+
+    @Param({"10000"})
+    public int simulations;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Portfolio portfolio;
+
+    @Setup
+    public void setUp() {
+        SimulationPool.configure(threads, SimulationPool.DEFAULT_CHUNK_SIZE);
+        portfolio = new Portfolio(10_000, BenchmarkPortfolios.equalWeights(tickers));
+    }
+
+    @Benchmark
+    public double[] sequentialRun() {
+        portfolio.performMultipleSimulations(days, simulations, SEED);
+        return portfolio.getFinalValuesDistribution();
+    }
+
+    @Benchmark
+    public double[] parallelRun() {
+        portfolio.performMultipleSimulationsInParallel(days, simulations, SEED);
+        return portfolio.getFinalValuesDistribution();
+    }
+
+    @Benchmark
+    public SimulationStatistics sequentialStreamingRun() {
+        return portfolio.performStreamingSimulations(days, simulations, 20, SEED);
+    }
+
+    @Benchmark
+    public SimulationStatistics parallelStreamingRun() {
+        return portfolio.performStreamingSimulationsInParallel(days, simulations, 20, SEED);
+    }
+}
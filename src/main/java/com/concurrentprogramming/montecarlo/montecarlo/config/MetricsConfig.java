@@ -0,0 +1,137 @@
+package com.concurrentprogramming.montecarlo.montecarlo.config;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.EngineMetrics;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationPool;
+import com.concurrentprogramming.montecarlo.montecarlo.model.StockDataCache;
+import com.concurrentprogramming.montecarlo.montecarlo.service.SimulationAdmission;
+import com.concurrentprogramming.montecarlo.montecarlo.service.SimulationJobService;
+import com.concurrentprogramming.montecarlo.montecarlo.service.SimulationResultCache;
+import com.concurrentprogramming.montecarlo.montecarlo.service.SimulationRunRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+// Engine, pool, queue and cache meters under montecarlo.*, read from the existing counters only when the metrics
+// endpoint is scraped
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder engineMetrics() {
+        return registry -> {
+            FunctionCounter.builder("montecarlo.engine.paths", EngineMetrics.class, engine -> EngineMetrics.getPaths())
+                    .description("Paths simulated by the engine")
+                    .baseUnit("paths")
+                    .register(registry);
+            FunctionTimer.builder("montecarlo.engine.chunks", EngineMetrics.class,
+                            engine -> EngineMetrics.getChunks(), engine -> EngineMetrics.getGenerationNanos(),
+                            TimeUnit.NANOSECONDS)
+                    .description("Path generation, per chunk of paths")
+                    .register(registry);
+            FunctionTimer.builder("montecarlo.engine.merges", EngineMetrics.class,
+                            engine -> EngineMetrics.getMerges(), engine -> EngineMetrics.getMergeNanos(),
+                            TimeUnit.NANOSECONDS)
+                    .description("Merges of partial results up the fork/join tree")
+                    .register(registry);
+            FunctionCounter.builder("montecarlo.engine.allocated", EngineMetrics.class,
+                            engine -> EngineMetrics.getAllocatedBytes())
+                    .description("Bytes allocated while generating paths")
+                    .baseUnit("bytes")
+                    .register(registry);
+            // Busy seconds per worker; its rate is that worker's utilization
+            busyCounter(registry, "caller", engine -> EngineMetrics.getCallerBusyNanos() / 1e9);
+            EngineMetrics.setWorkerListener(worker -> busyCounter(registry, Integer.toString(worker),
+                    engine -> EngineMetrics.getWorkerBusyNanos(worker) / 1e9));
+
+            Gauge.builder("montecarlo.pool.parallelism", () -> SimulationPool.get().getParallelism())
+                    .description("Worker threads of the simulation pool")
+                    .register(registry);
+            Gauge.builder("montecarlo.pool.active", () -> SimulationPool.get().getActiveThreadCount())
+                    .description("Simulation pool workers stealing or running tasks")
+                    .register(registry);
+            Gauge.builder("montecarlo.pool.running", () -> SimulationPool.get().getRunningThreadCount())
+                    .description("Simulation pool workers not blocked waiting to join")
+                    .register(registry);
+            Gauge.builder("montecarlo.pool.queued", () -> SimulationPool.get().getQueuedTaskCount())
+                    .description("Tasks waiting in the simulation pool's work queues")
+                    .baseUnit("tasks")
+                    .register(registry);
+            FunctionCounter.builder("montecarlo.pool.steals", SimulationPool.class,
+                            pool -> SimulationPool.get().getStealCount())
+                    .description("Tasks stolen between simulation pool workers")
+                    .baseUnit("tasks")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder serviceMetrics(SimulationAdmission admission, SimulationJobService jobService,
+                                      SimulationResultCache resultCache, SimulationRunRepository runRepository) {
+        return registry -> {
+            Gauge.builder("montecarlo.admission.running", admission, a -> a.getStats().getRunning())
+                    .description("Simulations holding an admission slot")
+                    .register(registry);
+            Gauge.builder("montecarlo.admission.queued", admission, a -> a.getStats().getQueued())
+                    .description("Simulations waiting for an admission slot")
+                    .register(registry);
+            FunctionCounter.builder("montecarlo.admission.rejected", admission, a -> a.getStats().getRejected())
+                    .description("Simulations turned away with 429")
+                    .register(registry);
+            Gauge.builder("montecarlo.jobs.queued", jobService, SimulationJobService::getQueuedJobs)
+                    .description("Background simulation jobs waiting for a worker")
+                    .register(registry);
+            Gauge.builder("montecarlo.jobs.running", jobService, SimulationJobService::getRunningJobs)
+                    .description("Background simulation jobs running")
+                    .register(registry);
+            Gauge.builder("montecarlo.result-cache.size", resultCache, c -> c.getStats().getSize())
+                    .description("Finished results held for identical requests")
+                    .register(registry);
+            FunctionCounter.builder("montecarlo.result-cache.hits", resultCache, c -> c.getStats().getHits())
+                    .description("Requests answered from a finished result")
+                    .register(registry);
+            FunctionCounter.builder("montecarlo.result-cache.shared", resultCache, c -> c.getStats().getSharedRuns())
+                    .description("Requests that joined an identical run in flight")
+                    .register(registry);
+            FunctionCounter.builder("montecarlo.result-cache.misses", resultCache, c -> c.getStats().getMisses())
+                    .description("Requests that started a run")
+                    .register(registry);
+            Gauge.builder("montecarlo.persistence.pending", runRepository, SimulationRunRepository::getPending)
+                    .description("Runs waiting for the background writer")
+                    .register(registry);
+            FunctionCounter.builder("montecarlo.persistence.dropped", runRepository, SimulationRunRepository::getDropped)
+                    .description("Runs not stored because the writer queue was full")
+                    .register(registry);
+            FunctionCounter.builder("montecarlo.persistence.failed", runRepository, SimulationRunRepository::getFailed)
+                    .description("Runs the writer failed to store")
+                    .register(registry);
+            StockDataCache dataCache = StockDataCache.getInstance();
+            Gauge.builder("montecarlo.data-cache.size", dataCache, StockDataCache::size)
+                    .description("Price series held in memory")
+                    .register(registry);
+            FunctionCounter.builder("montecarlo.data-cache.hits", dataCache, StockDataCache::getHits)
+                    .description("Price series lookups served from memory")
+                    .register(registry);
+            FunctionCounter.builder("montecarlo.data-cache.misses", dataCache, StockDataCache::getMisses)
+                    .description("Price series lookups that had to load")
+                    .register(registry);
+            FunctionCounter.builder("montecarlo.data-cache.loads", dataCache, StockDataCache::getLoads)
+                    .description("Price series loaded from the data directory or price stores")
+                    .register(registry);
+        };
+    }
+
+    private static void busyCounter(MeterRegistry registry, String worker, ToDoubleFunction<Class<EngineMetrics>> seconds) {
+        FunctionCounter.builder("montecarlo.engine.worker.busy", EngineMetrics.class, seconds)
+                .description("Seconds a worker spent generating paths")
+                .baseUnit("seconds")
+                .tag("worker", worker)
+                .register(registry);
+    }
+}
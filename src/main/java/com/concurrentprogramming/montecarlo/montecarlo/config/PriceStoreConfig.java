@@ -0,0 +1,28 @@
+package com.concurrentprogramming.montecarlo.montecarlo.config;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.PriceStoreImporter;
+import com.concurrentprogramming.montecarlo.montecarlo.model.StockDataCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.File;
+import java.io.IOException;
+
+@Configuration
+public class PriceStoreConfig {
+
+    // Imports new or updated CSVs into binary price stores in the background; until a ticker's store exists its
+    // CSV is simply parsed as before, so startup does not wait for the import
+    public PriceStoreConfig(@Value("${montecarlo.price-store.import-on-startup:false}") boolean importOnStartup) {
+        if (importOnStartup) {
+            Thread.ofVirtual().name("price-store-import").start(() -> {
+                try {
+                    PriceStoreImporter.importStale(new File(StockDataCache.getDataDirectory()));
+                } catch (IOException e) {
+                    System.err.println("Error importing price stores");
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+}
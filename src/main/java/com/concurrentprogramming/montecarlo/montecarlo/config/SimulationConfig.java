@@ -0,0 +1,15 @@
+package com.concurrentprogramming.montecarlo.montecarlo.config;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SimulationConfig {
+
+    // A value of 0 keeps the SimulationPool default for that setting
+    public SimulationConfig(@Value("${montecarlo.simulation.parallelism:0}") int parallelism,
+                            @Value("${montecarlo.simulation.chunk-size:0}") int chunkSize) {
+        SimulationPool.configure(parallelism, chunkSize);
+    }
+}
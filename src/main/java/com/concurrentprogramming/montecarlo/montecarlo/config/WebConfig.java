@@ -0,0 +1,17 @@
+package com.concurrentprogramming.montecarlo.montecarlo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    // Added after the default converters, so JSON stays the answer for clients that accept anything
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new BinarySimulationResultConverter());
+    }
+}
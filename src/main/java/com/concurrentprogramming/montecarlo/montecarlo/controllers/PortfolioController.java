@@ -1,24 +1,196 @@
 package com.concurrentprogramming.montecarlo.montecarlo.controllers;
 
+import com.concurrentprogramming.montecarlo.montecarlo.model.ExecutionMode;
+import com.concurrentprogramming.montecarlo.montecarlo.model.PortfolioBatchRequest;
+import com.concurrentprogramming.montecarlo.montecarlo.model.PortfolioBatchResult;
+import com.concurrentprogramming.montecarlo.montecarlo.model.PriceAppendRequest;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationAdmissionStats;
 import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationResult;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationResultCacheStats;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationSummary;
+import com.concurrentprogramming.montecarlo.montecarlo.model.StockDataCacheStats;
+import com.concurrentprogramming.montecarlo.montecarlo.model.TickerStatistics;
 import com.concurrentprogramming.montecarlo.montecarlo.service.PortfolioService;
+import com.concurrentprogramming.montecarlo.montecarlo.service.SimulationAdmission;
+import com.concurrentprogramming.montecarlo.montecarlo.service.SimulationResultCache;
 import com.concurrentprogramming.montecarlo.montecarlo.model.PortfolioRequest;
+import com.concurrentprogramming.montecarlo.montecarlo.utils.PortfolioPlotter.ChartFormat;
+import com.concurrentprogramming.montecarlo.montecarlo.utils.SimulationStreamWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/portfolio-simulation")
 public class PortfolioController {
     @Autowired
     private PortfolioService portfolioService;
+    @Autowired
+    private SimulationAdmission admission;
+    @Autowired
+    private SimulationResultCache resultCache;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Value("${montecarlo.stream.batch-size:1024}")
+    private int streamBatchSize;
+    @Value("${montecarlo.chart.max-sample-paths:50}")
+    private int chartMaxSamplePaths;
+
+    // Identical requests are answered from the result cache and only the first of them takes an admission slot;
+    // COMPARE runs exist to measure timings, so they always run. 400 for a request checkRequest rejects.
     @PostMapping("/simulate")
-    public SimulationResult simulatePortfolio(@RequestBody PortfolioRequest request) {
+    public ResponseEntity<SimulationResult> simulatePortfolio(@RequestBody PortfolioRequest request) {
+        try {
+            portfolioService.checkRequest(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        request.updateWeights();
+        portfolioService.loadStockData(request);
+        if (request.getExecutionMode() == ExecutionMode.COMPARE) {
+            return ResponseEntity.ok(admission.execute(() -> portfolioService.performSimulations(request)));
+        }
+        return ResponseEntity.ok(resultCache.get(SimulationResultCache.keyFor("simulate", request),
+                SimulationResultCache.pathBytes(request),
+                () -> admission.execute(() -> portfolioService.performSimulations(request))));
+    }
+
+    // 400 for a request checkRequest rejects (sizes, options or adaptive settings out of range), checked before the
+    // run is admitted
+    @PostMapping("/simulate/summary")
+    public ResponseEntity<SimulationSummary> simulatePortfolioSummary(@RequestBody PortfolioRequest request) {
+        try {
+            portfolioService.checkRequest(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        request.updateWeights();
+        portfolioService.loadStockData(request);
+        return ResponseEntity.ok(resultCache.get(SimulationResultCache.keyFor("summary", request),
+                SimulationResultCache.summaryBytes(request),
+                () -> admission.execute(() -> portfolioService.performStreamingSimulation(request))));
+    }
+
+    // Fan chart of a /simulate/summary run as PNG or SVG: bands between the requested quantiles, the mean and the
+    // sample paths, rendered without a display. The summary and every rendered image are kept in the result cache,
+    // so refreshing the chart of an identical request neither simulates nor renders again. Rendering is CPU-bound,
+    // so like the simulation it takes an admission slot; the two are admitted one after the other from the request
+    // thread, never one from inside the other. 400 for an unknown format, a size outside 200-4000 pixels or a
+    // request checkRequest rejects.
+    @PostMapping("/simulate/chart")
+    public ResponseEntity<byte[]> simulatePortfolioChart(@RequestBody PortfolioRequest request,
+                                                         @RequestParam(defaultValue = "png") String format,
+                                                         @RequestParam(defaultValue = "800") int width,
+                                                         @RequestParam(defaultValue = "600") int height) {
+        ChartFormat chartFormat;
+        try {
+            chartFormat = ChartFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (width < 200 || width > 4000 || height < 200 || height > 4000) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            portfolioService.checkRequest(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        request.updateWeights();
+        portfolioService.loadStockData(request);
+        String summaryKey = SimulationResultCache.keyFor("summary", request);
+        // An image is at most about a raster's size, PNG being smaller and SVG similar
+        long imageBytes = (long) width * height * 4;
+        byte[] image = resultCache.get(summaryKey + "|chart|" + chartFormat + "|" + width + "x" + height, imageBytes, () -> {
+            SimulationSummary summary = resultCache.get(summaryKey, SimulationResultCache.summaryBytes(request),
+                    () -> admission.execute(() -> portfolioService.performStreamingSimulation(request)));
+            return admission.execute(
+                    () -> portfolioService.renderFanChart(summary, chartFormat, width, height, chartMaxSamplePaths));
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(chartFormat.getMediaType()))
+                .body(image);
+    }
+
+    // Many weightings of the same tickers priced against one set of scenarios in a single admitted run; 400 when the
+    // batch is empty or too large, its frontier tickers repeat or its frontier step is below 0.01 or does not divide
+    // 100, and for a request checkRequest rejects
+    @PostMapping("/simulate/batch")
+    public ResponseEntity<PortfolioBatchResult> simulateBatch(@RequestBody PortfolioBatchRequest request) {
+        try {
+            portfolioService.checkRequest(request);
+            portfolioService.loadStockData(request);
+            return ResponseEntity.ok(admission.execute(() -> portfolioService.performBatchSimulation(request)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Streams every path, progress after each batch and the final summary while the simulation runs: NDJSON by
+    // default, Server-Sent Events when the client accepts text/event-stream. Memory stays at one batch of paths.
+    // 400 for a request checkRequest rejects.
+    @PostMapping("/simulate/stream")
+    public ResponseEntity<StreamingResponseBody> streamSimulation(@RequestBody PortfolioRequest request,
+                                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        try {
+            portfolioService.checkRequest(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
         request.updateWeights();
-        return portfolioService.performSimulations(
-                request.getInitialCapital(),
-                request.getStockWeights(),
-                request.getDaysToPredict(),
-                request.getNumSimulations()
-        );
+        portfolioService.loadStockData(request);
+        boolean serverSentEvents = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+        Consumer<OutputStream> simulation = admission.reserve(out -> {
+            SimulationStreamWriter writer = new SimulationStreamWriter(objectMapper, out, serverSentEvents);
+            writer.writeSummary(portfolioService.streamSimulation(request, streamBatchSize, writer));
+        });
+        StreamingResponseBody body = simulation::accept;
+        return ResponseEntity.ok()
+                .contentType(serverSentEvents ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // 400 when the ticker has no data, the date is not after its last day or the price is not positive
+    @PostMapping("/prices/{ticker}")
+    public ResponseEntity<TickerStatistics> appendPrice(@PathVariable String ticker, @RequestBody PriceAppendRequest request) {
+        try {
+            return ResponseEntity.ok(portfolioService.appendPrice(ticker, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/prices/{ticker}/statistics")
+    public ResponseEntity<TickerStatistics> getTickerStatistics(@PathVariable String ticker,
+                                                                @RequestParam(defaultValue = "0") int lookbackDays) {
+        if (lookbackDays < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        TickerStatistics statistics = portfolioService.getTickerStatistics(ticker, lookbackDays);
+        return statistics == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(statistics);
+    }
+
+    @GetMapping("/data-cache")
+    public StockDataCacheStats getDataCacheStats() {
+        return portfolioService.getDataCacheStats();
+    }
+
+    @GetMapping("/result-cache")
+    public SimulationResultCacheStats getResultCacheStats() {
+        return resultCache.getStats();
+    }
+
+    @GetMapping("/admission")
+    public SimulationAdmissionStats getAdmissionStats() {
+        return admission.getStats();
     }
 }
@@ -0,0 +1,55 @@
+package com.concurrentprogramming.montecarlo.montecarlo.controllers;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.PortfolioRequest;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationJob;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationJobStatus;
+import com.concurrentprogramming.montecarlo.montecarlo.service.SimulationJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Asynchronous variant of /portfolio-simulation/simulate/summary: submit, poll, fetch the result or cancel
+@RestController
+@RequestMapping("/portfolio-simulation/jobs")
+public class SimulationJobController {
+    @Autowired
+    private SimulationJobService jobService;
+
+    // 400 for a request PortfolioService.checkRequest rejects
+    @PostMapping
+    public ResponseEntity<SimulationJobStatus> submitJob(@RequestBody PortfolioRequest request) {
+        request.updateWeights();
+        try {
+            SimulationJob job = jobService.submit(request);
+            return ResponseEntity.accepted().body(job.toStatus());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<SimulationJobStatus> getJobStatus(@PathVariable String id) {
+        SimulationJob job = jobService.getJob(id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job.toStatus());
+    }
+
+    // 200 with the summary once the job succeeded; 409 with the job status while it is pending or if it failed
+    @GetMapping("/{id}/result")
+    public ResponseEntity<?> getJobResult(@PathVariable String id) {
+        SimulationJob job = jobService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getState() != SimulationJob.State.SUCCEEDED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(job.toStatus());
+        }
+        return ResponseEntity.ok(job.getResult());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<SimulationJobStatus> cancelJob(@PathVariable String id) {
+        SimulationJob job = jobService.cancel(id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job.toStatus());
+    }
+}
@@ -0,0 +1,39 @@
+package com.concurrentprogramming.montecarlo.montecarlo.controllers;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationRun;
+import com.concurrentprogramming.montecarlo.montecarlo.service.SimulationRunRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// History of persisted simulation runs. Runs are written in the background, so a run shows up shortly after its
+// response was sent.
+@RestController
+@RequestMapping("/portfolio-simulation/runs")
+public class SimulationRunController {
+    private static final int MAX_LIMIT = 500;
+
+    @Autowired
+    private SimulationRunRepository runRepository;
+
+    // tickers=AAPL,MSFT matches runs of exactly that ticker set; ticker=AAPL matches runs including AAPL;
+    // from and to are inclusive UTC dates
+    @GetMapping
+    public List<SimulationRun> findRuns(@RequestParam(required = false) List<String> tickers,
+                                        @RequestParam(required = false) String ticker,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                        @RequestParam(defaultValue = "50") int limit) {
+        return runRepository.findRuns(tickers, ticker, from, to, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<SimulationRun> getRun(@PathVariable long id) {
+        SimulationRun run = runRepository.findRun(id);
+        return run == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(run);
+    }
+}
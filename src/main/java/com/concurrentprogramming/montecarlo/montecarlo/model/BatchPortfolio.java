@@ -0,0 +1,29 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.Map;
+
+// One weighting of a batch run and its summary. efficient is true when no other weighting in the batch has a higher
+// mean final value with no more standard deviation, or the same mean with less.
+public class BatchPortfolio {
+    private final Map<String, Double> weights;
+    private final boolean efficient;
+    private final SimulationSummary summary;
+
+    public BatchPortfolio(Map<String, Double> weights, boolean efficient, SimulationSummary summary) {
+        this.weights = weights;
+        this.efficient = efficient;
+        this.summary = summary;
+    }
+
+    public Map<String, Double> getWeights() {
+        return weights;
+    }
+
+    public boolean isEfficient() {
+        return efficient;
+    }
+
+    public SimulationSummary getSummary() {
+        return summary;
+    }
+}
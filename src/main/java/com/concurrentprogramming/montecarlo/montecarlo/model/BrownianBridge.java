@@ -0,0 +1,79 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// Brownian-bridge construction of a standard Brownian motion on steps 1..steps. The first normal fixes the
+// terminal value, the next ones fill in midpoints coarse-to-fine, so with quasi-random inputs the low (best
+// distributed) dimensions carry most of the path's variance.
+public final class BrownianBridge {
+    private final int steps;
+    private final int[] point;
+    private final int[] left;
+    private final int[] right;
+    private final double[] leftWeight;
+    private final double[] rightWeight;
+    private final double[] stdDev;
+
+    public BrownianBridge(int steps) {
+        this.steps = steps;
+        this.point = new int[steps];
+        this.left = new int[steps];
+        this.right = new int[steps];
+        this.leftWeight = new double[steps];
+        this.rightWeight = new double[steps];
+        this.stdDev = new double[steps];
+        if (steps == 0) {
+            return;
+        }
+
+        point[0] = steps;
+        left[0] = 0;
+        right[0] = steps;
+        stdDev[0] = Math.sqrt(steps);
+        int[] queueLeft = new int[2 * steps + 1];
+        int[] queueRight = new int[2 * steps + 1];
+        int head = 0;
+        int tail = 0;
+        queueLeft[tail] = 0;
+        queueRight[tail++] = steps;
+        int next = 1;
+        while (head < tail) {
+            int l = queueLeft[head];
+            int r = queueRight[head++];
+            int m = (l + r) >>> 1;
+            if (m == l) {
+                continue;
+            }
+            point[next] = m;
+            left[next] = l;
+            right[next] = r;
+            leftWeight[next] = (double) (r - m) / (r - l);
+            rightWeight[next] = (double) (m - l) / (r - l);
+            stdDev[next] = Math.sqrt((double) (m - l) * (r - m) / (r - l));
+            next++;
+            queueLeft[tail] = l;
+            queueRight[tail++] = m;
+            queueLeft[tail] = m;
+            queueRight[tail++] = r;
+        }
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    // Method to turn work[normals, normals + steps) (in bridge order) into Brownian increments, written to
+    // increments[offset + (t - 1) * stride] for t = 1..steps. work[levels, levels + steps + 1) is used for the path.
+    public void buildIncrements(double[] work, int normals, int levels, double[] increments, int offset, int stride) {
+        if (steps == 0) {
+            return;
+        }
+        work[levels] = 0.0;
+        work[levels + steps] = stdDev[0] * work[normals];
+        for (int k = 1; k < steps; k++) {
+            work[levels + point[k]] = leftWeight[k] * work[levels + left[k]] + rightWeight[k] * work[levels + right[k]]
+                    + stdDev[k] * work[normals + k];
+        }
+        for (int t = 1; t <= steps; t++) {
+            increments[offset + (t - 1) * stride] = work[levels + t] - work[levels + t - 1];
+        }
+    }
+}
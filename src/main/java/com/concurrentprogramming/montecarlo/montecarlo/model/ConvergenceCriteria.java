@@ -0,0 +1,64 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// Stopping rule for an adaptive run: stop once standardError / |estimate| is at most targetRelativeError, or when the
+// path or time budget is exhausted, whichever comes first.
+public class ConvergenceCriteria {
+    // Smallest first batch; later batches are sized from the error observed so far
+    public static final int MIN_BATCH = 4_096;
+    // Longest time budget a run may ask for
+    public static final long MAX_MILLIS = 3_600_000;
+
+    private final double targetRelativeError;
+    private final int maxSimulations;
+    private final long maxMillis;
+
+    public ConvergenceCriteria(double targetRelativeError, int maxSimulations, long maxMillis) {
+        if (!(targetRelativeError > 0.0)) {
+            throw new IllegalArgumentException("targetRelativeError must be positive");
+        }
+        if (maxSimulations < 1) {
+            throw new IllegalArgumentException("maxSimulations must be at least 1");
+        }
+        if (maxMillis <= 0 || maxMillis > MAX_MILLIS) {
+            throw new IllegalArgumentException("maxMillis must be between 1 and " + MAX_MILLIS);
+        }
+        this.targetRelativeError = targetRelativeError;
+        this.maxSimulations = maxSimulations;
+        this.maxMillis = maxMillis;
+    }
+
+    public double getTargetRelativeError() {
+        return targetRelativeError;
+    }
+
+    public int getMaxSimulations() {
+        return maxSimulations;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public double relativeError(MeanEstimator estimator) {
+        double estimate = Math.abs(estimator.getEstimate());
+        return estimate == 0.0 ? Double.POSITIVE_INFINITY : estimator.getStandardError() / estimate;
+    }
+
+    public boolean isConverged(MeanEstimator estimator) {
+        return estimator.getSamples() > 1 && relativeError(estimator) <= targetRelativeError;
+    }
+
+    // Paths for the next batch: enough to reach the target if the error keeps falling as 1/sqrt(n), at least
+    // MIN_BATCH, at most as many as have run so far (so a poor early estimate cannot overshoot wildly), and rounded
+    // up to whole chunks so every batch starts on a chunk boundary
+    public int nextBatchSize(long completed, MeanEstimator estimator, int chunkSize) {
+        long batch = MIN_BATCH;
+        if (completed > 0) {
+            double ratio = relativeError(estimator) / targetRelativeError;
+            long needed = Double.isFinite(ratio) ? (long) Math.ceil(completed * ratio * ratio) - completed : completed;
+            batch = Math.max(MIN_BATCH, Math.min(needed, completed));
+        }
+        batch = Math.min(batch, maxSimulations - completed);
+        return (int) ((batch + chunkSize - 1) / chunkSize * chunkSize);
+    }
+}
@@ -0,0 +1,41 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+public class ConvergenceReport {
+    public enum StopReason {
+        CONVERGED,
+        SIMULATION_BUDGET,
+        TIME_BUDGET
+    }
+
+    private final double targetRelativeError;
+    private final double achievedRelativeError;
+    private final int batches;
+    private final StopReason stopReason;
+
+    public ConvergenceReport(double targetRelativeError, double achievedRelativeError, int batches, StopReason stopReason) {
+        this.targetRelativeError = targetRelativeError;
+        this.achievedRelativeError = achievedRelativeError;
+        this.batches = batches;
+        this.stopReason = stopReason;
+    }
+
+    public double getTargetRelativeError() {
+        return targetRelativeError;
+    }
+
+    public double getAchievedRelativeError() {
+        return achievedRelativeError;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    public boolean isConverged() {
+        return stopReason == StopReason.CONVERGED;
+    }
+}
@@ -0,0 +1,262 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Joint log-return model for a set of tickers: the mean vector and the Cholesky factor of the covariance matrix,
+// both estimated over the dates on which every ticker has a return. Models are cached per ticker set and data
+// version, so the O(n^2 * history) estimate and O(n^3) factorisation run once per universe, not per request.
+//
+// When a ticker set is requested again after prices were appended, the model is extended from the latest one for
+// the same tickers and lookback instead of re-estimated: the merge-join resumes where it stopped, the new aligned
+// days are added to the co-moment sums and days that left a lookback window are subtracted, O(n^2) per day.
+public final class CorrelatedModel {
+    private static final int MAX_CACHED_MODELS = Integer.getInteger("montecarlo.correlated-model-cache.max-entries", 64);
+    private static final Map<String, CorrelatedModel> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CorrelatedModel> eldest) {
+            return size() > MAX_CACHED_MODELS;
+        }
+    };
+    // Newest model per ticker set and lookback, the starting point for extending after an append
+    private static final Map<String, CorrelatedModel> LATEST = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CorrelatedModel> eldest) {
+            return size() > MAX_CACHED_MODELS;
+        }
+    };
+
+    private final int assets;
+    private final int observations;
+    private final double[] mean;
+    private final double[] covariance;
+    private final double[] cholesky;
+    // Estimation state: the inputs, the merge-join position per asset and the co-moment sums of the aligned days
+    private final StockStatistics[] statistics;
+    private final int[] positions;
+    private final double[] sums;
+    private final double[] products;
+
+    private CorrelatedModel(StockStatistics[] statistics, int[] positions, double[] sums, double[] products, int observations) {
+        this.assets = statistics.length;
+        this.observations = observations;
+        this.statistics = statistics;
+        this.positions = positions;
+        this.sums = sums;
+        this.products = products;
+        this.mean = new double[assets];
+        this.covariance = new double[assets * assets];
+        if (observations > 0) {
+            for (int i = 0; i < assets; i++) {
+                mean[i] = sums[i] / observations;
+            }
+            for (int i = 0; i < assets; i++) {
+                for (int j = 0; j <= i; j++) {
+                    double value = products[i * assets + j] / observations - mean[i] * mean[j];
+                    covariance[i * assets + j] = value;
+                    covariance[j * assets + i] = value;
+                }
+            }
+        }
+        this.cholesky = factor(covariance, assets);
+    }
+
+    // statistics must be in a stable order (Portfolio keeps them sorted by ticker)
+    public static CorrelatedModel forStatistics(StockStatistics[] statistics) {
+        StringBuilder key = new StringBuilder();
+        StringBuilder universe = new StringBuilder();
+        for (StockStatistics stockStatistics : statistics) {
+            key.append(stockStatistics.getTicker()).append('@').append(stockStatistics.getDataVersion())
+                    .append('/').append(stockStatistics.getLookbackDays()).append('|');
+            universe.append(stockStatistics.getTicker()).append('/').append(stockStatistics.getLookbackDays()).append('|');
+        }
+        String cacheKey = key.toString();
+        String universeKey = universe.toString();
+        CorrelatedModel latest;
+        synchronized (CACHE) {
+            CorrelatedModel cached = CACHE.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+            latest = LATEST.get(universeKey);
+        }
+        StockStatistics[] inputs = statistics.clone();
+        CorrelatedModel model = latest != null && latest.canExtendTo(inputs)
+                ? latest.extend(inputs)
+                : estimate(inputs);
+        synchronized (CACHE) {
+            CACHE.put(cacheKey, model);
+            CorrelatedModel current = LATEST.get(universeKey);
+            if (current == null || model.isNewerThan(current)) {
+                LATEST.put(universeKey, model);
+            }
+        }
+        return model;
+    }
+
+    private static CorrelatedModel estimate(StockStatistics[] statistics) {
+        int assets = statistics.length;
+        int[] positions = new int[assets];
+        int[] ends = new int[assets];
+        for (int i = 0; i < assets; i++) {
+            positions[i] = statistics[i].getWindowStart();
+            ends[i] = statistics[i].getWindowEnd();
+        }
+        double[] sums = new double[assets];
+        double[] products = new double[assets * assets];
+        int observations = 0;
+        while (alignNext(statistics, positions, ends)) {
+            accumulate(statistics, positions, sums, products, 1.0);
+            observations++;
+        }
+        return new CorrelatedModel(statistics, positions, sums, products, observations);
+    }
+
+    // True when every input is a later version of this model's input from the same appended series
+    private boolean canExtendTo(StockStatistics[] next) {
+        for (int i = 0; i < assets; i++) {
+            if (!statistics[i].sharesRowsWith(next[i])
+                    || next[i].getWindowStart() < statistics[i].getWindowStart()
+                    || next[i].getWindowEnd() < statistics[i].getWindowEnd()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isNewerThan(CorrelatedModel other) {
+        for (int i = 0; i < assets; i++) {
+            if (statistics[i].getWindowEnd() < other.statistics[i].getWindowEnd()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private CorrelatedModel extend(StockStatistics[] next) {
+        int[] nextPositions = positions.clone();
+        double[] nextSums = sums.clone();
+        double[] nextProducts = products.clone();
+        int nextObservations = observations;
+        int[] ends = new int[assets];
+        int[] cursor = new int[assets];
+        for (int i = 0; i < assets; i++) {
+            ends[i] = next[i].getWindowEnd();
+            cursor[i] = statistics[i].getWindowStart();
+        }
+
+        // Days appended since this model: resume the merge-join where it stopped
+        while (alignNext(next, nextPositions, ends)) {
+            accumulate(next, nextPositions, nextSums, nextProducts, 1.0);
+            nextObservations++;
+        }
+        // Days that left a lookback window: replay the join from the old window starts up to the first day that
+        // is still inside every window; those are the oldest aligned days, so they are removed in order
+        while (alignNext(next, cursor, nextPositions) && !insideWindows(next, cursor)) {
+            accumulate(next, cursor, nextSums, nextProducts, -1.0);
+            nextObservations--;
+        }
+        return new CorrelatedModel(next, nextPositions, nextSums, nextProducts, nextObservations);
+    }
+
+    private static boolean insideWindows(StockStatistics[] statistics, int[] rows) {
+        for (int i = 0; i < statistics.length; i++) {
+            if (rows[i] < statistics[i].getWindowStart()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Merge-joins the date-ordered return series: advances positions to the next day on which every asset has a
+    // return before its end, and returns false when one of them runs out first
+    private static boolean alignNext(StockStatistics[] statistics, int[] positions, int[] ends) {
+        int assets = statistics.length;
+        while (true) {
+            int day = Integer.MIN_VALUE;
+            for (int i = 0; i < assets; i++) {
+                if (positions[i] >= ends[i]) {
+                    return false;
+                }
+                day = Math.max(day, statistics[i].returnEpochDayAt(positions[i]));
+            }
+            boolean aligned = true;
+            for (int i = 0; i < assets; i++) {
+                while (positions[i] < ends[i] && statistics[i].returnEpochDayAt(positions[i]) < day) {
+                    positions[i]++;
+                }
+                if (positions[i] >= ends[i] || statistics[i].returnEpochDayAt(positions[i]) != day) {
+                    aligned = false;
+                }
+            }
+            if (aligned) {
+                return true;
+            }
+        }
+    }
+
+    // Adds (sign 1) or removes (sign -1) the aligned day at positions and moves past it
+    private static void accumulate(StockStatistics[] statistics, int[] positions, double[] sums, double[] products, double sign) {
+        int assets = statistics.length;
+        for (int i = 0; i < assets; i++) {
+            double value = statistics[i].logReturnAt(positions[i]);
+            sums[i] += sign * value;
+            for (int j = 0; j <= i; j++) {
+                products[i * assets + j] += sign * value * statistics[j].logReturnAt(positions[j]);
+            }
+        }
+        for (int i = 0; i < assets; i++) {
+            positions[i]++;
+        }
+    }
+
+    // Lower-triangular L with L * L^T = covariance. Pivots that are not positive (perfectly collinear or constant
+    // series) are clamped to zero so the factor stays usable as a positive semi-definite square root.
+    private static double[] factor(double[] covariance, int assets) {
+        double[] lower = new double[assets * assets];
+        for (int i = 0; i < assets; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = covariance[i * assets + j];
+                for (int k = 0; k < j; k++) {
+                    sum -= lower[i * assets + k] * lower[j * assets + k];
+                }
+                if (i == j) {
+                    lower[i * assets + i] = sum > 0.0 ? Math.sqrt(sum) : 0.0;
+                } else {
+                    double pivot = lower[j * assets + j];
+                    lower[i * assets + j] = pivot > 0.0 ? sum / pivot : 0.0;
+                }
+            }
+        }
+        return lower;
+    }
+
+    // Turns the standard normals in shocks[offset, offset + assets) into correlated log returns, in place.
+    // Rows are processed from the last asset down because row i only reads shocks 0..i.
+    public void correlate(double[] shocks, int offset) {
+        for (int i = assets - 1; i >= 0; i--) {
+            int row = i * assets;
+            double value = mean[i];
+            for (int j = 0; j <= i; j++) {
+                value += cholesky[row + j] * shocks[offset + j];
+            }
+            shocks[offset + i] = value;
+        }
+    }
+
+    public int getAssets() {
+        return assets;
+    }
+
+    public int getObservations() {
+        return observations;
+    }
+
+    public double getMean(int asset) {
+        return mean[asset];
+    }
+
+    public double getCovariance(int first, int second) {
+        return covariance[first * assets + second];
+    }
+}
@@ -0,0 +1,136 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+// Process-wide counters of the simulation engine for the metrics endpoint. Workers update them once per chunk and
+// once per merge, never per path, through LongAdders (striped, so workers do not contend on a cache line), which
+// costs two clock and two allocation-counter reads per chunk. Busy time is also kept per worker of the shared pool,
+// by pool index; work on other threads (sequential runs) counts as the caller's.
+public final class EngineMetrics {
+    private static final com.sun.management.ThreadMXBean THREADS = threadMXBean();
+
+    private static final LongAdder paths = new LongAdder();
+    private static final LongAdder chunks = new LongAdder();
+    private static final LongAdder generationNanos = new LongAdder();
+    private static final LongAdder merges = new LongAdder();
+    private static final LongAdder mergeNanos = new LongAdder();
+    private static final LongAdder allocatedBytes = new LongAdder();
+    private static final LongAdder callerBusyNanos = new LongAdder();
+    private static volatile LongAdder[] workerBusyNanos = new LongAdder[0];
+    private static volatile IntConsumer workerListener;
+
+    private EngineMetrics() {
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+
+    // Bytes allocated so far by the current thread, 0 when the JVM cannot tell
+    public static long currentThreadAllocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    // Called with the index of every pool worker the first time it completes a chunk, and for those already seen
+    public static void setWorkerListener(IntConsumer listener) {
+        workerListener = listener;
+        LongAdder[] workers = workerBusyNanos;
+        for (int worker = 0; worker < workers.length; worker++) {
+            if (workers[worker] != null) {
+                listener.accept(worker);
+            }
+        }
+    }
+
+    static void chunkCompleted(int chunkPaths, long nanos, long bytes, SimulationProfile profile) {
+        paths.add(chunkPaths);
+        chunks.increment();
+        generationNanos.add(nanos);
+        allocatedBytes.add(bytes);
+        busyCounter().add(nanos);
+        if (profile != null) {
+            profile.chunkCompleted(chunkPaths, nanos, bytes);
+        }
+    }
+
+    static void merged(long nanos) {
+        merges.increment();
+        mergeNanos.add(nanos);
+        busyCounter().add(nanos);
+    }
+
+    private static LongAdder busyCounter() {
+        if (!(Thread.currentThread() instanceof ForkJoinWorkerThread worker) || worker.getPool() != SimulationPool.get()) {
+            return callerBusyNanos;
+        }
+        int index = worker.getPoolIndex();
+        LongAdder[] workers = workerBusyNanos;
+        if (index < workers.length && workers[index] != null) {
+            return workers[index];
+        }
+        return addWorker(index);
+    }
+
+    private static LongAdder addWorker(int index) {
+        LongAdder counter;
+        synchronized (EngineMetrics.class) {
+            LongAdder[] workers = workerBusyNanos;
+            if (index < workers.length && workers[index] != null) {
+                return workers[index];
+            }
+            LongAdder[] grown = index < workers.length
+                    ? workers.clone()
+                    : Arrays.copyOf(workers, Math.max(index + 1, workers.length * 2));
+            counter = new LongAdder();
+            grown[index] = counter;
+            workerBusyNanos = grown;
+        }
+        IntConsumer listener = workerListener;
+        if (listener != null) {
+            listener.accept(index);
+        }
+        return counter;
+    }
+
+    public static long getPaths() {
+        return paths.sum();
+    }
+
+    public static long getChunks() {
+        return chunks.sum();
+    }
+
+    public static long getGenerationNanos() {
+        return generationNanos.sum();
+    }
+
+    public static long getMerges() {
+        return merges.sum();
+    }
+
+    public static long getMergeNanos() {
+        return mergeNanos.sum();
+    }
+
+    public static long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    public static long getCallerBusyNanos() {
+        return callerBusyNanos.sum();
+    }
+
+    public static long getWorkerBusyNanos(int worker) {
+        LongAdder[] workers = workerBusyNanos;
+        return worker < workers.length && workers[worker] != null ? workers[worker].sum() : 0;
+    }
+}
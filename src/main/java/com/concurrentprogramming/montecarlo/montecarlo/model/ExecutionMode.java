@@ -0,0 +1,10 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+public enum ExecutionMode {
+    // One run on the request thread
+    SEQUENTIAL,
+    // One run on the shared simulation pool
+    PARALLEL,
+    // Diagnostic: the sequential and the parallel run with the same seed, each timed; costs two runs
+    COMPARE
+}
@@ -0,0 +1,120 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.random.RandomGenerator;
+
+// Standard normal variate generators selectable per request. fill() writes a whole block of variates so the
+// kernel can apply the affine transform, exp and cumulative product in separate tight loops.
+public enum GaussianSampler {
+    // RandomGenerator.nextGaussian(); for the L64X128MixRandom streams this is the JDK's modified ziggurat
+    JDK {
+        @Override
+        public double next(RandomGenerator random) {
+            return random.nextGaussian();
+        }
+    },
+    // Marsaglia-Tsang 128-layer ziggurat. The layer index and the 32-bit value are taken from different bits of one
+    // nextLong() (Doornik's correction), so about 98% of variates cost one generator call, a compare and a multiply.
+    ZIGGURAT {
+        @Override
+        public double next(RandomGenerator random) {
+            long bits = random.nextLong();
+            int hz = (int) (bits >>> 32);
+            int iz = (int) bits & 127;
+            if (Math.abs(hz) < Ziggurat.KN[iz]) {
+                return hz * Ziggurat.WN[iz];
+            }
+            return Ziggurat.fix(random, hz, iz);
+        }
+    };
+
+    public abstract double next(RandomGenerator random);
+
+    // Method to fill values[from, to) with independent standard normal variates
+    public void fill(RandomGenerator random, double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            values[i] = next(random);
+        }
+    }
+
+    // Acklam's rational approximation of the standard normal quantile (relative error below 1.2e-9), used to map
+    // quasi-random uniforms to normals where rejection sampling would break the low-discrepancy structure
+    public static double inverseCumulativeProbability(double p) {
+        if (p < INVERSE_LOW) {
+            double q = Math.sqrt(-2.0 * Math.log(p));
+            return (((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5])
+                    / ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1.0);
+        }
+        if (p > 1.0 - INVERSE_LOW) {
+            double q = Math.sqrt(-2.0 * Math.log(1.0 - p));
+            return -(((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5])
+                    / ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1.0);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((A[0] * r + A[1]) * r + A[2]) * r + A[3]) * r + A[4]) * r + A[5]) * q
+                / (((((B[0] * r + B[1]) * r + B[2]) * r + B[3]) * r + B[4]) * r + 1.0);
+    }
+
+    private static final double INVERSE_LOW = 0.02425;
+    private static final double[] A = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+            1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+    private static final double[] B = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+            6.680131188771972e+01, -1.328068155288572e+01};
+    private static final double[] C = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+            -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+    private static final double[] D = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+            3.754408661907416e+00};
+
+    private static final class Ziggurat {
+        private static final double R = 3.442619855899;
+        private static final double AREA = 9.91256303526217e-3;
+        private static final double M1 = 2147483648.0;
+        private static final int[] KN = new int[128];
+        private static final double[] WN = new double[128];
+        private static final double[] FN = new double[128];
+
+        static {
+            double dn = R;
+            double tn = dn;
+            double q = AREA / Math.exp(-0.5 * dn * dn);
+            KN[0] = (int) ((dn / q) * M1);
+            KN[1] = 0;
+            WN[0] = q / M1;
+            WN[127] = dn / M1;
+            FN[0] = 1.0;
+            FN[127] = Math.exp(-0.5 * dn * dn);
+            for (int i = 126; i >= 1; i--) {
+                dn = Math.sqrt(-2.0 * Math.log(AREA / dn + Math.exp(-0.5 * dn * dn)));
+                KN[i + 1] = (int) ((dn / tn) * M1);
+                tn = dn;
+                FN[i] = Math.exp(-0.5 * dn * dn);
+                WN[i] = dn / M1;
+            }
+        }
+
+        // Slow path for samples outside the rectangle of their layer: the wedge test, or the tail for layer 0
+        private static double fix(RandomGenerator random, int hz, int iz) {
+            while (true) {
+                double x = hz * WN[iz];
+                if (iz == 0) {
+                    double tail;
+                    double y;
+                    do {
+                        tail = -Math.log(1.0 - random.nextDouble()) / R;
+                        y = -Math.log(1.0 - random.nextDouble());
+                    } while (y + y < tail * tail);
+                    return hz > 0 ? R + tail : -R - tail;
+                }
+                if (FN[iz] + random.nextDouble() * (FN[iz - 1] - FN[iz]) < Math.exp(-0.5 * x * x)) {
+                    return x;
+                }
+                long bits = random.nextLong();
+                hz = (int) (bits >>> 32);
+                iz = (int) bits & 127;
+                if (Math.abs(hz) < KN[iz]) {
+                    return hz * WN[iz];
+                }
+            }
+        }
+    }
+}
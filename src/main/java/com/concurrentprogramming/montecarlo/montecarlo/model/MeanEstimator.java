@@ -0,0 +1,126 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// Mergeable estimator of the mean final portfolio value and its standard error for one VarianceReduction mode.
+// NONE and ANTITHETIC keep Welford moments of the estimator samples (single paths or antithetic pair averages),
+// CONTROL_VARIATE also keeps the control's moments and the co-moment for the optimal coefficient, and SOBOL keeps
+// per-replicate sums so the error comes from the spread between independently shifted replicates.
+public class MeanEstimator {
+    public static final int SOBOL_REPLICATES = 16;
+
+    private final VarianceReduction mode;
+    private final double controlExpectation;
+    private long count;
+    private double mean;
+    private double m2;
+    private double controlMean;
+    private double controlM2;
+    private double coMoment;
+    private final double[] replicateSums;
+    private final long[] replicateCounts;
+
+    public MeanEstimator(VarianceReduction mode, double controlExpectation) {
+        this.mode = mode;
+        this.controlExpectation = controlExpectation;
+        this.replicateSums = mode == VarianceReduction.SOBOL ? new double[SOBOL_REPLICATES] : null;
+        this.replicateCounts = mode == VarianceReduction.SOBOL ? new long[SOBOL_REPLICATES] : null;
+    }
+
+    // Method to add one estimator sample; control is only read for CONTROL_VARIATE and replicate only for SOBOL
+    public void add(double value, double control, int replicate) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (mode == VarianceReduction.CONTROL_VARIATE) {
+            double controlDelta = control - controlMean;
+            controlMean += controlDelta / count;
+            controlM2 += controlDelta * (control - controlMean);
+            coMoment += controlDelta * (value - mean);
+        } else if (mode == VarianceReduction.SOBOL) {
+            replicateSums[replicate] += value;
+            replicateCounts[replicate]++;
+        }
+    }
+
+    public void merge(MeanEstimator other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            controlMean = other.controlMean;
+            controlM2 = other.controlM2;
+            coMoment = other.coMoment;
+        } else {
+            long total = count + other.count;
+            double weight = (double) other.count / total;
+            double productWeight = (double) count * other.count / total;
+            double delta = other.mean - mean;
+            double controlDelta = other.controlMean - controlMean;
+            mean += delta * weight;
+            m2 += other.m2 + delta * delta * productWeight;
+            controlMean += controlDelta * weight;
+            controlM2 += other.controlM2 + controlDelta * controlDelta * productWeight;
+            coMoment += other.coMoment + delta * controlDelta * productWeight;
+            count = total;
+        }
+        if (replicateSums != null) {
+            for (int r = 0; r < replicateSums.length; r++) {
+                replicateSums[r] += other.replicateSums[r];
+                replicateCounts[r] += other.replicateCounts[r];
+            }
+        }
+    }
+
+    public VarianceReduction getMode() {
+        return mode;
+    }
+
+    public long getSamples() {
+        return count;
+    }
+
+    public double getEstimate() {
+        if (mode == VarianceReduction.CONTROL_VARIATE && controlM2 > 0.0) {
+            return mean - (coMoment / controlM2) * (controlMean - controlExpectation);
+        }
+        return mean;
+    }
+
+    public double getStandardError() {
+        if (count < 2) {
+            return 0.0;
+        }
+        if (mode == VarianceReduction.SOBOL) {
+            return replicateStandardError();
+        }
+        double variance = m2 / (count - 1);
+        if (mode == VarianceReduction.CONTROL_VARIATE && controlM2 > 0.0 && m2 > 0.0) {
+            double correlationSquared = coMoment * coMoment / (controlM2 * m2);
+            variance *= Math.max(0.0, 1.0 - correlationSquared);
+        }
+        return Math.sqrt(variance / count);
+    }
+
+    private double replicateStandardError() {
+        int replicates = 0;
+        double sum = 0.0;
+        double sumSquares = 0.0;
+        for (int r = 0; r < replicateSums.length; r++) {
+            if (replicateCounts[r] > 0) {
+                double replicateMean = replicateSums[r] / replicateCounts[r];
+                sum += replicateMean;
+                sumSquares += replicateMean * replicateMean;
+                replicates++;
+            }
+        }
+        if (replicates < 2) {
+            return 0.0;
+        }
+        double replicateMean = sum / replicates;
+        double variance = Math.max(0.0, (sumSquares - replicates * replicateMean * replicateMean) / (replicates - 1));
+        return Math.sqrt(variance / replicates);
+    }
+}
@@ -3,17 +3,41 @@ package com.concurrentprogramming.montecarlo.montecarlo.model;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class MonteCarloSimulation {
+    // Opt-in with a -Pvector build, -Dmontecarlo.simulation.vectorized=true and --add-modules jdk.incubator.vector;
+    // null otherwise. The SIMD exp can differ from Math.exp in the last ulp between JIT tiers, so seeded runs are only
+    // bit-identical with it disabled.
+    static final PriceKernel VECTOR_KERNEL = vectorKernel();
+
     private final double mean;
     private final double stdDev;
-    private final Random random;
 
     public MonteCarloSimulation(Double[] distribution) {
         this.mean = calculateMean(distribution);
         this.stdDev = calculateStdDev(distribution, mean);
-        this.random = new Random();
+    }
+
+    // Reuses statistics computed once per ticker instead of rescanning the return history
+    public MonteCarloSimulation(StockStatistics statistics) {
+        this.mean = statistics.getMean();
+        this.stdDev = statistics.getStdDev();
+    }
+
+    private static PriceKernel vectorKernel() {
+        if (!Boolean.getBoolean("montecarlo.simulation.vectorized")
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (PriceKernel) Class.forName(MonteCarloSimulation.class.getPackageName() + ".VectorPriceKernel")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Built without -Pvector
+            return null;
+        }
     }
 
     // Method to calculate the mean of the distribution
@@ -38,12 +62,59 @@ public class MonteCarloSimulation {
     public List<Double> performMontecarloSimulation(int steps) {
         List<Double> simulation = new ArrayList<>();
         for (int i = 0; i < steps; i++) {
-            double randomValue = random.nextGaussian() * stdDev + mean;
+            double randomValue = ThreadLocalRandom.current().nextGaussian() * stdDev + mean;
             simulation.add(randomValue);
         }
         return simulation;
     }
 
+    // Method to fill a caller-supplied buffer with simulated log returns, allocating only when it is too small
+    public double[] performMontecarloSimulation(int steps, double[] logReturns) {
+        return performMontecarloSimulation(steps, logReturns, ThreadLocalRandom.current());
+    }
+
+    public double[] performMontecarloSimulation(int steps, double[] logReturns, RandomGenerator random) {
+        if (logReturns == null || logReturns.length < steps) {
+            logReturns = new double[steps];
+        }
+        for (int i = 0; i < steps; i++) {
+            logReturns[i] = random.nextGaussian() * stdDev + mean;
+        }
+        return logReturns;
+    }
+
+    // Method to simulate a price path in place: prices[0] is the start price and prices[1..steps] the cumulative product
+    public double[] simulatePrices(double startPrice, int steps, double[] prices) {
+        return simulatePrices(startPrice, steps, prices, ThreadLocalRandom.current());
+    }
+
+    public double[] simulatePrices(double startPrice, int steps, double[] prices, RandomGenerator random) {
+        return simulatePrices(startPrice, steps, prices, random, GaussianSampler.JDK);
+    }
+
+    // The buffer is filled in three passes: standard normals, daily growth factors exp(z * stdDev + mean), and the
+    // running product. The first two are branch-free loops over primitives and use SIMD exp with VECTOR_KERNEL.
+    public double[] simulatePrices(double startPrice, int steps, double[] prices, RandomGenerator random, GaussianSampler sampler) {
+        if (prices == null || prices.length < steps + 1) {
+            prices = new double[steps + 1];
+        }
+        sampler.fill(random, prices, 1, steps + 1);
+        if (VECTOR_KERNEL != null) {
+            VECTOR_KERNEL.growthFactors(prices, 1, steps + 1, mean, stdDev);
+        } else {
+            for (int i = 1; i <= steps; i++) {
+                prices[i] = Math.exp(prices[i] * stdDev + mean);
+            }
+        }
+        double currentPrice = startPrice;
+        prices[0] = currentPrice;
+        for (int i = 1; i <= steps; i++) {
+            currentPrice *= prices[i];
+            prices[i] = currentPrice;
+        }
+        return prices;
+    }
+
     // Method to perform multiple simulations
     public List<List<Double>> performSimulations(int numSimulations, int steps) {
         List<List<Double>> simulations = new ArrayList<>();
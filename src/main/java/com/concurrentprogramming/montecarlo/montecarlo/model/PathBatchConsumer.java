@@ -0,0 +1,8 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// Receives the paths of a batched run one batch at a time, in simulation order. paths[0..count) hold simulations
+// firstIndex..firstIndex + count - 1; the arrays are reused for the next batch, so copy anything kept.
+// statistics covers every path up to and including this batch.
+public interface PathBatchConsumer {
+    void accept(int firstIndex, double[][] paths, int count, SimulationStatistics statistics);
+}
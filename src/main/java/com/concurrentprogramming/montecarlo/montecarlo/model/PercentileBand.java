@@ -0,0 +1,51 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// Distribution of the portfolio value on one simulated day of a stored run. Percentiles of streamed runs are
+// estimates from quantile sketches; columns written before the sketches existed may be null.
+public class PercentileBand {
+    private final int day;
+    private final double mean;
+    private final Double p05;
+    private final Double p25;
+    private final Double p50;
+    private final Double p75;
+    private final Double p95;
+
+    public PercentileBand(int day, double mean, Double p05, Double p25, Double p50, Double p75, Double p95) {
+        this.day = day;
+        this.mean = mean;
+        this.p05 = p05;
+        this.p25 = p25;
+        this.p50 = p50;
+        this.p75 = p75;
+        this.p95 = p95;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public Double getP05() {
+        return p05;
+    }
+
+    public Double getP25() {
+        return p25;
+    }
+
+    public Double getP50() {
+        return p50;
+    }
+
+    public Double getP75() {
+        return p75;
+    }
+
+    public Double getP95() {
+        return p95;
+    }
+}
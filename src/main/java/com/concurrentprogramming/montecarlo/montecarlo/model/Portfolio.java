@@ -3,111 +3,611 @@ package com.concurrentprogramming.montecarlo.montecarlo.model;
 import com.concurrentprogramming.montecarlo.montecarlo.utils.PortfolioPlotter;
 
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
 
 public class Portfolio {
-    private final Map<Stock, Double> stockWeights;
+    // Leaf tasks of performScenarioSimulations, each holding statistics for every weight set
+    private static final int SCENARIO_LEAVES = 16;
+
+    private final Stock[] stocks;
+    private final double[] weights;
+    private final double[] holdings;
+    private final CorrelatedModel model;
+    private final double[] geometricWeights;
     private final double initialCapital;
-    private final List<List<Double>> allSimulations;
-    private final List<Double> finalValues;
+    private final List<double[]> allSimulations;
+    private double[] finalValues;
+    private GaussianSampler gaussianSampler = GaussianSampler.JDK;
+    private VarianceReduction varianceReduction = VarianceReduction.NONE;
+    private MeanEstimator estimator;
+    private ConvergenceReport convergenceReport;
+    private SimulationProgress progress;
+    private SimulationProfile profile;
 
     public Portfolio(double initialCapital, Map<String, Double> tickerWeights) {
+        this(initialCapital, tickerWeights, 0);
+    }
+
+    // lookbackDays estimates the return model from each ticker's most recent returns only; 0 uses the whole history
+    public Portfolio(double initialCapital, Map<String, Double> tickerWeights, int lookbackDays) {
         this.initialCapital = initialCapital;
-        this.stockWeights = new HashMap<>();
+        this.stocks = new Stock[tickerWeights.size()];
+        this.weights = new double[tickerWeights.size()];
+        this.holdings = new double[tickerWeights.size()];
         this.allSimulations = new ArrayList<>();
-        this.finalValues = new ArrayList<>();
+        this.finalValues = new double[0];
+
+        // Stocks are kept in ticker order so a seed draws the same numbers for the same stock whatever the map order
+        SortedMap<String, Double> sortedWeights = new TreeMap<>(tickerWeights);
+        int i = 0;
+        for (Map.Entry<String, Double> entry : sortedWeights.entrySet()) {
+            Stock stock = new Stock(entry.getKey(), lookbackDays);
+            stocks[i] = stock;
+            weights[i] = entry.getValue();
+            // Starting value of this stock's slice of the capital; it grows with the stock's price relative
+            holdings[i] = initialCapital * weights[i];
+            i++;
+        }
+
+        StockStatistics[] statistics = new StockStatistics[stocks.length];
+        for (int s = 0; s < stocks.length; s++) {
+            if (stocks[s].getStatistics() == null) {
+                throw new IllegalStateException("No historical stock data available for ticker: " + stocks[s].getTicker());
+            }
+            statistics[s] = stocks[s].getStatistics();
+        }
+        this.model = CorrelatedModel.forStatistics(statistics);
+
+        // Share of the starting value in each asset, the exponent weights of the geometric control portfolio
+        double totalHoldings = Arrays.stream(holdings).sum();
+        this.geometricWeights = new double[stocks.length];
+        for (int s = 0; s < stocks.length; s++) {
+            geometricWeights[s] = totalHoldings == 0.0 ? 0.0 : holdings[s] / totalHoldings;
+        }
+    }
+
+    // Tickers in the order weights and model rows use
+    public List<String> getTickers() {
+        List<String> tickers = new ArrayList<>(stocks.length);
+        for (Stock stock : stocks) {
+            tickers.add(stock.getTicker());
+        }
+        return tickers;
+    }
+
+    public CorrelatedModel getModel() {
+        return model;
+    }
+
+    // Size of the per-worker scratch buffer simulatePortfolio needs for a path of daysToPredict days: the
+    // day-by-asset return matrix, the running holdings, and room for antithetic copies or Brownian-bridge levels
+    public int scratchLength(int daysToPredict) {
+        int returns = daysToPredict * stocks.length;
+        return returns + stocks.length + Math.max(returns, 2 * daysToPredict + 1);
+    }
+
+    public GaussianSampler getGaussianSampler() {
+        return gaussianSampler;
+    }
+
+    public void setGaussianSampler(GaussianSampler gaussianSampler) {
+        this.gaussianSampler = gaussianSampler;
+    }
+
+    public VarianceReduction getVarianceReduction() {
+        return varianceReduction;
+    }
+
+    public void setVarianceReduction(VarianceReduction varianceReduction) {
+        this.varianceReduction = varianceReduction;
+    }
+
+    public SimulationProgress getProgress() {
+        return progress;
+    }
+
+    // Optional; when set, every run reports completed paths to it and stops with a CancellationException once it is
+    // cancelled
+    public void setProgress(SimulationProgress progress) {
+        this.progress = progress;
+    }
+
+    public SimulationProfile getProfile() {
+        return profile;
+    }
 
-        for (Map.Entry<String, Double> entry : tickerWeights.entrySet()) {
-            String ticker = entry.getKey();
-            Double weight = entry.getValue();
-            Stock stock = new Stock(ticker);
-            this.stockWeights.put(stock, weight);
+    // Optional; when set, every run adds its paths, worker time and allocations to it
+    public void setProfile(SimulationProfile profile) {
+        this.profile = profile;
+    }
+
+    public double[] simulatePortfolio(int daysToPredict) {
+        return simulatePortfolio(daysToPredict, null, null);
+    }
+
+    public double[] simulatePortfolio(int daysToPredict, double[] portfolioValues, double[] scratch) {
+        return simulatePortfolio(daysToPredict, portfolioValues, scratch, ThreadLocalRandom.current());
+    }
+
+    // Writes daysToPredict + 1 portfolio values into portfolioValues. All assets move together: each day's standard
+    // normals are correlated through the cached Cholesky factor, turned into growth factors, and applied to the
+    // holdings, so the portfolio value comes out of the same pass. scratch (scratchLength(daysToPredict) doubles)
+    // holds the day-by-asset return matrix followed by the running holdings. Both buffers are reused when large enough.
+    public double[] simulatePortfolio(int daysToPredict, double[] portfolioValues, double[] scratch, RandomGenerator random) {
+        if (portfolioValues == null || portfolioValues.length < daysToPredict + 1) {
+            portfolioValues = new double[daysToPredict + 1];
+        }
+        if (scratch == null || scratch.length < scratchLength(daysToPredict)) {
+            scratch = new double[scratchLength(daysToPredict)];
+        }
+        gaussianSampler.fill(random, scratch, 0, daysToPredict * stocks.length);
+        pricePath(daysToPredict, portfolioValues, scratch);
+        return portfolioValues;
+    }
+
+    // Prices the standard normals already in scratch[0, daysToPredict * assets) and returns the value of the
+    // geometric-average portfolio over the same shocks, the control for VarianceReduction.CONTROL_VARIATE
+    private double pricePath(int daysToPredict, double[] portfolioValues, double[] scratch) {
+        double geometricLogReturn = growthFactors(daysToPredict, scratch);
+        applyGrowth(daysToPredict, holdings, scratch, 0, portfolioValues, scratch);
+        return portfolioValues[0] * Math.exp(geometricLogReturn);
+    }
+
+    // Turns the standard normals in scratch[0, daysToPredict * assets) into daily growth factors in place and returns
+    // the geometric-average portfolio's total log return
+    private double growthFactors(int daysToPredict, double[] scratch) {
+        int assets = stocks.length;
+        int returns = daysToPredict * assets;
+
+        double geometricLogReturn = 0.0;
+        for (int offset = 0; offset < returns; offset += assets) {
+            model.correlate(scratch, offset);
+            for (int s = 0; s < assets; s++) {
+                geometricLogReturn += geometricWeights[s] * scratch[offset + s];
+            }
+        }
+        if (MonteCarloSimulation.VECTOR_KERNEL != null) {
+            MonteCarloSimulation.VECTOR_KERNEL.exp(scratch, 0, returns);
+        } else {
+            for (int i = 0; i < returns; i++) {
+                scratch[i] = Math.exp(scratch[i]);
+            }
         }
+        return geometricLogReturn;
     }
 
-    public List<Double> simulatePortfolio(int daysToPredict) {
-        Map<Stock, List<Double>> stockSimulations = new HashMap<>();
-        for (Stock stock : stockWeights.keySet()) {
-            stockSimulations.put(stock, stock.performSimulation(daysToPredict));
+    // Writes the value of startHoldings grown by the daysToPredict * assets growth factors starting at
+    // factors[factorOffset] into portfolioValues, keeping the running holdings in scratch after the first
+    // daysToPredict * assets doubles; the factors themselves are left as they are
+    private void applyGrowth(int daysToPredict, double[] startHoldings, double[] factors, int factorOffset,
+                             double[] portfolioValues, double[] scratch) {
+        int assets = stocks.length;
+        int returns = daysToPredict * assets;
+
+        double value = 0.0;
+        for (int s = 0; s < assets; s++) {
+            scratch[returns + s] = startHoldings[s];
+            value += startHoldings[s];
+        }
+        portfolioValues[0] = value;
+        for (int day = 1, offset = factorOffset; day <= daysToPredict; day++, offset += assets) {
+            value = 0.0;
+            for (int s = 0; s < assets; s++) {
+                double holding = scratch[returns + s] * factors[offset + s];
+                scratch[returns + s] = holding;
+                value += holding;
+            }
+            portfolioValues[day] = value;
         }
+    }
 
-        List<Double> portfolioSimulation = new ArrayList<>();
-        for (int day = 0; day <= daysToPredict; day++) {
-            double portfolioValue = 0.0;
-            for (Map.Entry<Stock, Double> entry : stockWeights.entrySet()) {
-                Stock stock = entry.getKey();
-                double weight = entry.getValue();
-                double initialInvestment = initialCapital * weight;
-                double stockPriceRelative = stockSimulations.get(stock).get(day) / stock.stockData.lastEntry().getValue();
-                portfolioValue += initialInvestment * stockPriceRelative;
+    // Closed-form E[C * exp(sum_i a_i L_i)] where L_i is asset i's total log return over daysToPredict days:
+    // the exponent is normal with mean T * a.mu and variance T * a'Sigma a
+    private double geometricControlExpectation(int daysToPredict) {
+        double drift = 0.0;
+        double variance = 0.0;
+        for (int i = 0; i < stocks.length; i++) {
+            drift += geometricWeights[i] * model.getMean(i);
+            for (int j = 0; j < stocks.length; j++) {
+                variance += geometricWeights[i] * geometricWeights[j] * model.getCovariance(i, j);
             }
-            portfolioSimulation.add(portfolioValue);
         }
-        return portfolioSimulation;
+        return Arrays.stream(holdings).sum() * Math.exp(daysToPredict * (drift + 0.5 * variance));
     }
 
     public void performMultipleSimulations(int daysToPredict, int numSimulations) {
-        allSimulations.clear();
-        finalValues.clear();
-        for (int i = 0; i < numSimulations; i++) {
-            List<Double> portfolioSimulation = simulatePortfolio(daysToPredict);
-            allSimulations.add(portfolioSimulation);
-            finalValues.add(portfolioSimulation.get(portfolioSimulation.size() - 1));
-        }
+        performMultipleSimulations(daysToPredict, numSimulations, SimulationStreams.randomSeed());
+    }
+
+    public void performMultipleSimulations(int daysToPredict, int numSimulations, long seed) {
+        materializeSimulations(daysToPredict, numSimulations, seed, false);
     }
 
     public void performMultipleSimulationsInParallel(int daysToPredict, int numSimulations) {
-        allSimulations.clear();
-        finalValues.clear();
-
-        int availableProcessors = Runtime.getRuntime().availableProcessors();
-        System.out.println("The number of available processors is :" + availableProcessors);
-        int threadsToUse = Math.min(availableProcessors, numSimulations);
-
-        List<Thread> threads = new ArrayList<>();
-        List<List<Double>> concurrentSimulations = new CopyOnWriteArrayList<>();
-        List<Double> concurrentFinalValues = new CopyOnWriteArrayList<>();
-
-        for (int i = 0; i < threadsToUse; i++) {
-            Thread thread = new Thread(() -> {
-                int simulationsPerThread = numSimulations / threadsToUse;
-                for (int j = 0; j < simulationsPerThread; j++) {
-                    List<Double> portfolioSimulation = simulatePortfolio(daysToPredict);
-                    concurrentSimulations.add(portfolioSimulation);
-                    concurrentFinalValues.add(portfolioSimulation.getLast());
-                }
+        performMultipleSimulationsInParallel(daysToPredict, numSimulations, SimulationStreams.randomSeed());
+    }
+
+    // Runs exactly numSimulations paths on the shared fork/join pool; each chunk writes its own slice of the results
+    public void performMultipleSimulationsInParallel(int daysToPredict, int numSimulations, long seed) {
+        materializeSimulations(daysToPredict, numSimulations, seed, true);
+    }
+
+    public SimulationStatistics performStreamingSimulations(int daysToPredict, int numSimulations, int sampleSize) {
+        return performStreamingSimulations(daysToPredict, numSimulations, sampleSize, SimulationStreams.randomSeed());
+    }
+
+    // Folds every path into running statistics as it is generated; only sampleSize paths are retained
+    public SimulationStatistics performStreamingSimulations(int daysToPredict, int numSimulations, int sampleSize, long seed) {
+        return streamSimulations(daysToPredict, numSimulations, sampleSize, seed, false);
+    }
+
+    public SimulationStatistics performStreamingSimulationsInParallel(int daysToPredict, int numSimulations, int sampleSize) {
+        return performStreamingSimulationsInParallel(daysToPredict, numSimulations, sampleSize, SimulationStreams.randomSeed());
+    }
+
+    // Streaming variant of the parallel run: each chunk folds into its own accumulator and the accumulators are merged
+    public SimulationStatistics performStreamingSimulationsInParallel(int daysToPredict, int numSimulations, int sampleSize, long seed) {
+        return streamSimulations(daysToPredict, numSimulations, sampleSize, seed, true);
+    }
+
+    // Sequential and parallel runs share the chunking, the per-chunk random streams and the reduction order,
+    // so for the same seed they produce bit-identical results
+    private void materializeSimulations(int daysToPredict, int numSimulations, long seed, boolean parallel) {
+        clearSimulations();
+
+        RunSetup setup = new RunSetup(daysToPredict, new SimulationStreams(seed, numSimulations, SimulationPool.getChunkSize()));
+        double[][] simulations = new double[numSimulations][];
+        double[] simulatedFinalValues = new double[numSimulations];
+
+        estimator = new SimulationTask<>(0, numSimulations, setup.streams.getChunkSize(),
+                (from, to) -> {
+                    MeanEstimator chunkEstimator = setup.newEstimator();
+                    simulateChunk(from, to, setup, chunkEstimator, (index, portfolioValues) -> {
+                        simulations[index] = portfolioValues.clone();
+                        simulatedFinalValues[index] = portfolioValues[daysToPredict];
+                    });
+                    return chunkEstimator;
+                },
+                (left, right) -> {
+                    left.merge(right);
+                    return left;
+                },
+                parallel).execute();
+
+        allSimulations.addAll(Arrays.asList(simulations));
+        finalValues = simulatedFinalValues;
+    }
+
+    private SimulationStatistics streamSimulations(int daysToPredict, int numSimulations, int sampleSize, long seed, boolean parallel) {
+        RunSetup setup = new RunSetup(daysToPredict, new SimulationStreams(seed, numSimulations, SimulationPool.getChunkSize()));
+        return streamRange(setup, 0, numSimulations, sampleSize, parallel);
+    }
+
+    public SimulationStatistics performAdaptiveSimulations(int daysToPredict, ConvergenceCriteria criteria, int sampleSize) {
+        return performAdaptiveSimulations(daysToPredict, criteria, sampleSize, SimulationStreams.randomSeed());
+    }
+
+    // Runs whole-chunk batches on the shared pool until the estimate of the mean final value reaches the target
+    // relative standard error or a budget runs out. Batches continue the same simulation indices and random streams,
+    // so a seeded adaptive run is reproducible. The outcome is available from getConvergenceReport().
+    public SimulationStatistics performAdaptiveSimulations(int daysToPredict, ConvergenceCriteria criteria, int sampleSize, long seed) {
+        long start = System.nanoTime();
+        long budgetNanos = TimeUnit.MILLISECONDS.toNanos(criteria.getMaxMillis());
+        RunSetup setup = new RunSetup(daysToPredict, new SimulationStreams(seed, SimulationPool.getChunkSize()));
+        SimulationStatistics statistics = new SimulationStatistics(daysToPredict, sampleSize, setup.newEstimator());
+        int completed = 0;
+        int batches = 0;
+        ConvergenceReport.StopReason stopReason;
+        while (true) {
+            if (criteria.isConverged(statistics.getEstimator())) {
+                stopReason = ConvergenceReport.StopReason.CONVERGED;
+                break;
+            }
+            if (completed >= criteria.getMaxSimulations()) {
+                stopReason = ConvergenceReport.StopReason.SIMULATION_BUDGET;
+                break;
+            }
+            if (batches > 0 && System.nanoTime() - start >= budgetNanos) {
+                stopReason = ConvergenceReport.StopReason.TIME_BUDGET;
+                break;
+            }
+            int batch = criteria.nextBatchSize(completed, statistics.getEstimator(), setup.streams.getChunkSize());
+            int to = (int) Math.min((long) completed + batch, criteria.getMaxSimulations());
+            statistics.merge(streamRange(setup, completed, to, sampleSize, true));
+            completed = to;
+            batches++;
+        }
+        convergenceReport = new ConvergenceReport(criteria.getTargetRelativeError(),
+                criteria.relativeError(statistics.getEstimator()), batches, stopReason);
+        return statistics;
+    }
+
+    public ConvergenceReport getConvergenceReport() {
+        return convergenceReport;
+    }
+
+    public SimulationStatistics performBatchedSimulations(int daysToPredict, int numSimulations, int batchSize, PathBatchConsumer consumer) {
+        return performBatchedSimulations(daysToPredict, numSimulations, batchSize, SimulationStreams.randomSeed(), consumer);
+    }
+
+    // Runs numSimulations paths on the shared pool in batches of batchSize (rounded up to whole chunks) and hands
+    // each batch to consumer before generating the next, so only one batch of paths is ever held however many
+    // simulations are requested, and a slow consumer slows generation down. For the same seed the paths are those
+    // of performMultipleSimulations.
+    public SimulationStatistics performBatchedSimulations(int daysToPredict, int numSimulations, int batchSize, long seed,
+                                                          PathBatchConsumer consumer) {
+        RunSetup setup = new RunSetup(daysToPredict, new SimulationStreams(seed, SimulationPool.getChunkSize()));
+        int chunkSize = setup.streams.getChunkSize();
+        int pathsPerBatch = Math.max(1, (batchSize + chunkSize - 1) / chunkSize) * chunkSize;
+        double[][] batch = new double[Math.min(pathsPerBatch, numSimulations)][daysToPredict + 1];
+        SimulationStatistics statistics = new SimulationStatistics(daysToPredict, 0, setup.newEstimator());
+        for (int from = 0; from < numSimulations; from += pathsPerBatch) {
+            int batchFrom = from;
+            int to = Math.min(from + pathsPerBatch, numSimulations);
+            statistics.merge(streamRange(setup, from, to, 0, true,
+                    (index, portfolioValues) -> System.arraycopy(portfolioValues, 0, batch[index - batchFrom], 0, daysToPredict + 1)));
+            consumer.accept(from, batch, to - from, statistics);
+        }
+        return statistics;
+    }
+
+    // Prices every weight set (one weight per ticker of getTickers(), as fractions of the initial capital) against
+    // one shared set of scenarios: each path's normals are drawn, correlated and turned into growth factors once, and
+    // every weight set only re-prices those factors and folds the path into its statistics, instead of running a
+    // whole simulation. Paths are those of performMultipleSimulations for the same seed, so a
+    // weight set sees exactly the paths a Portfolio of these tickers with those weights would. Plain Monte Carlo:
+    // the variance reduction mode does not apply. A leaf task keeps statistics for every weight set, so leaves span
+    // several chunks and there are at most SCENARIO_LEAVES of them. Only final-value quantiles are kept per weight set,
+    // so getDailyQuantile returns null for the results.
+    public SimulationStatistics[] performScenarioSimulations(int daysToPredict, int numSimulations, int sampleSize,
+                                                             long seed, double[][] weightSets) {
+        int assets = stocks.length;
+        int returns = daysToPredict * assets;
+        double[][] holdingSets = new double[weightSets.length][assets];
+        for (int p = 0; p < weightSets.length; p++) {
+            if (weightSets[p].length != assets) {
+                throw new IllegalArgumentException("weight set " + p + " must have one weight per ticker");
+            }
+            for (int s = 0; s < assets; s++) {
+                holdingSets[p][s] = initialCapital * weightSets[p][s];
+            }
+        }
+        SimulationStreams streams = new SimulationStreams(seed, numSimulations, SimulationPool.getChunkSize());
+        int chunkSize = streams.getChunkSize();
+        int chunks = (numSimulations + chunkSize - 1) / chunkSize;
+        int leafSize = Math.max(1, (chunks + SCENARIO_LEAVES - 1) / SCENARIO_LEAVES) * chunkSize;
+        SimulationProfile runProfile = profile;
+
+        return new SimulationTask<>(0, numSimulations, leafSize,
+                (from, to) -> {
+                    SimulationStatistics[] leafStatistics = new SimulationStatistics[weightSets.length];
+                    for (int p = 0; p < weightSets.length; p++) {
+                        leafStatistics[p] = new SimulationStatistics(daysToPredict, sampleSize,
+                                new MeanEstimator(VarianceReduction.NONE, 0.0), false);
+                    }
+                    double[] portfolioValues = new double[daysToPredict + 1];
+                    double[] scratch = new double[scratchLength(daysToPredict)];
+                    // A chunk's growth factors are generated first and then priced one weight set at a time, so a
+                    // weight set's statistics stay in cache while it goes through the chunk
+                    double[] factors = new double[Math.min(chunkSize, to - from) * returns];
+                    for (int chunkFrom = from; chunkFrom < to; chunkFrom += chunkSize) {
+                        long startNanos = System.nanoTime();
+                        long startBytes = EngineMetrics.currentThreadAllocatedBytes();
+                        int paths = Math.min(chunkFrom + chunkSize, to) - chunkFrom;
+                        RandomGenerator random = streams.forChunk(chunkFrom);
+                        for (int path = 0; path < paths; path++) {
+                            gaussianSampler.fill(random, scratch, 0, returns);
+                            growthFactors(daysToPredict, scratch);
+                            System.arraycopy(scratch, 0, factors, path * returns, returns);
+                        }
+                        for (int p = 0; p < weightSets.length; p++) {
+                            for (int path = 0; path < paths; path++) {
+                                applyGrowth(daysToPredict, holdingSets[p], factors, path * returns, portfolioValues, scratch);
+                                leafStatistics[p].addPath(portfolioValues);
+                                leafStatistics[p].getEstimator().add(portfolioValues[daysToPredict], 0.0, 0);
+                            }
+                        }
+                        EngineMetrics.chunkCompleted(paths, System.nanoTime() - startNanos,
+                                EngineMetrics.currentThreadAllocatedBytes() - startBytes, runProfile);
+                    }
+                    return leafStatistics;
+                },
+                (left, right) -> {
+                    for (int p = 0; p < left.length; p++) {
+                        left[p].merge(right[p]);
+                    }
+                    return left;
+                }).execute();
+    }
+
+    private SimulationStatistics streamRange(RunSetup setup, int from, int to, int sampleSize, boolean parallel) {
+        return streamRange(setup, from, to, sampleSize, parallel, null);
+    }
+
+    // Streams simulations [from, to) of a run, also passing every path to pathSink when there is one; from must be a
+    // multiple of the chunk size
+    private SimulationStatistics streamRange(RunSetup setup, int from, int to, int sampleSize, boolean parallel, PathSink pathSink) {
+        setup.streams.ensureCapacity(to);
+        return new SimulationTask<>(from, to, setup.streams.getChunkSize(),
+                (chunkFrom, chunkTo) -> {
+                    SimulationStatistics chunkStatistics = new SimulationStatistics(setup.daysToPredict, sampleSize, setup.newEstimator());
+                    simulateChunk(chunkFrom, chunkTo, setup, chunkStatistics.getEstimator(), (index, portfolioValues) -> {
+                        chunkStatistics.addPath(portfolioValues);
+                        if (pathSink != null) {
+                            pathSink.accept(index, portfolioValues);
+                        }
+                    });
+                    return chunkStatistics;
+                },
+                (left, right) -> {
+                    left.merge(right);
+                    return left;
+                },
+                parallel).execute();
+    }
+
+    private interface PathSink {
+        void accept(int index, double[] portfolioValues);
+    }
+
+    // Everything a run's chunks share: the random streams and the per-mode constants derived from them
+    private final class RunSetup {
+        private final int daysToPredict;
+        private final SimulationStreams streams;
+        private final VarianceReduction mode;
+        private final double controlExpectation;
+        private final BrownianBridge bridge;
+        private final int sobolDimensions;
+        private final int[][] sobolShifts;
+        private final SimulationProgress progress;
+        private final SimulationProfile profile;
+
+        private RunSetup(int daysToPredict, SimulationStreams streams) {
+            this.daysToPredict = daysToPredict;
+            this.streams = streams;
+            this.mode = varianceReduction;
+            this.progress = Portfolio.this.progress;
+            this.profile = Portfolio.this.profile;
+            this.controlExpectation = mode == VarianceReduction.CONTROL_VARIATE ? geometricControlExpectation(daysToPredict) : 0.0;
+            if (mode == VarianceReduction.SOBOL) {
+                this.bridge = new BrownianBridge(daysToPredict);
+                this.sobolDimensions = Math.min(SobolSequence.MAX_DIMENSIONS, daysToPredict * stocks.length);
+                this.sobolShifts = streams.randomShifts(MeanEstimator.SOBOL_REPLICATES, sobolDimensions);
+            } else {
+                this.bridge = null;
+                this.sobolDimensions = 0;
+                this.sobolShifts = null;
+            }
+        }
+
+        private MeanEstimator newEstimator() {
+            return new MeanEstimator(mode, controlExpectation);
+        }
+    }
+
+    // Runs simulations [from, to) of a run, checking for cancellation first and reporting the chunk to the run's
+    // progress afterwards when there is one, and its time and allocations to the engine metrics
+    private void simulateChunk(int from, int to, RunSetup setup, MeanEstimator estimator, PathSink sink) {
+        long startNanos = System.nanoTime();
+        long startBytes = EngineMetrics.currentThreadAllocatedBytes();
+        SimulationProgress runProgress = setup.progress;
+        if (runProgress == null) {
+            simulatePaths(from, to, setup, estimator, sink);
+        } else {
+            runProgress.checkCancelled();
+            double[] finalValueSum = new double[1];
+            simulatePaths(from, to, setup, estimator, (index, portfolioValues) -> {
+                sink.accept(index, portfolioValues);
+                finalValueSum[0] += portfolioValues[setup.daysToPredict];
             });
-            threads.add(thread);
-            thread.start();
-        }
-        for (Thread thread : threads) {
-            try {
-                thread.join();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+            runProgress.chunkCompleted(to - from, finalValueSum[0]);
+        }
+        EngineMetrics.chunkCompleted(to - from, System.nanoTime() - startNanos,
+                EngineMetrics.currentThreadAllocatedBytes() - startBytes, setup.profile);
+    }
+
+    // Runs simulations [from, to) of a run with the chunk's own random stream and buffers, passing every path to
+    // sink and every estimator sample to estimator
+    private void simulatePaths(int from, int to, RunSetup setup, MeanEstimator estimator, PathSink sink) {
+        int daysToPredict = setup.daysToPredict;
+        int assets = stocks.length;
+        int returns = daysToPredict * assets;
+        int aux = returns + assets;
+        RandomGenerator random = setup.streams.forChunk(from);
+        double[] portfolioValues = new double[daysToPredict + 1];
+        double[] scratch = new double[scratchLength(daysToPredict)];
+
+        switch (setup.mode) {
+            case NONE, CONTROL_VARIATE -> {
+                for (int i = from; i < to; i++) {
+                    gaussianSampler.fill(random, scratch, 0, returns);
+                    double control = pricePath(daysToPredict, portfolioValues, scratch);
+                    sink.accept(i, portfolioValues);
+                    estimator.add(portfolioValues[daysToPredict], control, 0);
+                }
+            }
+            case ANTITHETIC -> {
+                for (int i = from; i < to; i += 2) {
+                    gaussianSampler.fill(random, scratch, 0, returns);
+                    System.arraycopy(scratch, 0, scratch, aux, returns);
+                    pricePath(daysToPredict, portfolioValues, scratch);
+                    sink.accept(i, portfolioValues);
+                    double pairValue = portfolioValues[daysToPredict];
+                    if (i + 1 < to) {
+                        for (int k = 0; k < returns; k++) {
+                            scratch[k] = -scratch[aux + k];
+                        }
+                        pricePath(daysToPredict, portfolioValues, scratch);
+                        sink.accept(i + 1, portfolioValues);
+                        pairValue = 0.5 * (pairValue + portfolioValues[daysToPredict]);
+                    }
+                    estimator.add(pairValue, 0.0, 0);
+                }
+            }
+            case SOBOL -> {
+                int replicates = MeanEstimator.SOBOL_REPLICATES;
+                int[] point = new int[setup.sobolDimensions];
+                long pointIndex = -1;
+                for (int i = from; i < to; i++) {
+                    int replicate = i % replicates;
+                    // Index 0 of an unshifted Sobol sequence is the origin, so points start at 1
+                    long index = i / replicates + 1;
+                    if (index != pointIndex) {
+                        SobolSequence.point(index, setup.sobolDimensions, point);
+                        pointIndex = index;
+                    }
+                    int[] shift = setup.sobolShifts[replicate];
+                    for (int s = 0; s < assets; s++) {
+                        for (int k = 0; k < daysToPredict; k++) {
+                            int dimension = k * assets + s;
+                            scratch[aux + k] = dimension < setup.sobolDimensions
+                                    ? GaussianSampler.inverseCumulativeProbability(SobolSequence.toUnitInterval(point[dimension], shift[dimension]))
+                                    : gaussianSampler.next(random);
+                        }
+                        setup.bridge.buildIncrements(scratch, aux, aux + daysToPredict, scratch, s, assets);
+                    }
+                    pricePath(daysToPredict, portfolioValues, scratch);
+                    sink.accept(i, portfolioValues);
+                    estimator.add(portfolioValues[daysToPredict], 0.0, replicate);
+                }
             }
         }
-        allSimulations.addAll(concurrentSimulations);
-        finalValues.addAll(concurrentFinalValues);
     }
 
-    public List<Double> getFinalValuesDistribution() {
+    public void clearSimulations() {
+        allSimulations.clear();
+        finalValues = new double[0];
+        estimator = null;
+    }
+
+    public double[] getFinalValuesDistribution() {
         return finalValues;
     }
 
     public double getMeanFinalValue() {
-        return finalValues.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+        return Arrays.stream(finalValues).average().orElse(0.0);
+    }
+
+    // Variance-reduced estimate of the mean final value of the last materialized run
+    public double getEstimatedMeanFinalValue() {
+        return estimator == null ? getMeanFinalValue() : estimator.getEstimate();
+    }
+
+    public double getStandardError() {
+        return estimator == null ? 0.0 : estimator.getStandardError();
     }
 
     public double getStandardDeviationFinalValue() {
         double mean = getMeanFinalValue();
-        return Math.sqrt(finalValues.stream()
-                .mapToDouble(value -> Math.pow(value - mean, 2))
+        return Math.sqrt(Arrays.stream(finalValues)
+                .map(value -> Math.pow(value - mean, 2))
                 .average()
                 .orElse(0.0));
     }
 
-    public List<List<Double>> getAllSimulations() {
+    public List<double[]> getAllSimulations() {
         return allSimulations;
     }
 
@@ -135,8 +635,7 @@ public class Portfolio {
         double sequentialMean = portfolio.getMeanFinalValue();
         double sequentialStdDev = portfolio.getStandardDeviationFinalValue();
 
-        portfolio.allSimulations.clear();
-        portfolio.finalValues.clear();
+        portfolio.clearSimulations();
 
         long startParallel = System.currentTimeMillis();
         portfolio.performMultipleSimulationsInParallel(daysToPredict, numSimulations);
@@ -0,0 +1,30 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Setter
+@Getter
+public class PortfolioBatchRequest {
+    private double initialCapital;
+    // Weightings to price, in percent like PortfolioRequest.stockWeights; a ticker a weighting leaves out gets 0
+    private List<Map<String, Double>> portfolios = new ArrayList<>();
+    // Efficient-frontier sweep: also prices every long-only weighting of frontierTickers in steps of frontierStep
+    // percent (e.g. 10 for 0%, 10%, ..., 100%; at least 0.01), each ticker listed once
+    private List<String> frontierTickers;
+    private Double frontierStep;
+    private int daysToPredict;
+    private int numSimulations;
+    // Raw paths returned with each portfolio's summary
+    private int samplePaths = 0;
+    // Optional; the same seed gives the same scenarios, and the paths /simulate gives for the same tickers
+    private Long seed;
+    private GaussianSampler gaussianSampler = GaussianSampler.JDK;
+    private Integer lookbackDays;
+    private List<Double> quantiles = SimulationSummary.DEFAULT_QUANTILES;
+    private List<Double> riskLevels = SimulationSummary.DEFAULT_RISK_LEVELS;
+}
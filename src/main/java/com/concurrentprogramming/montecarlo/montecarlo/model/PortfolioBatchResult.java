@@ -0,0 +1,34 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.List;
+
+// Every weighting of a batch priced against the same numSimulations scenarios of the tickers
+public class PortfolioBatchResult {
+    private final List<String> tickers;
+    private final int numSimulations;
+    private final long executionTime;
+    private final List<BatchPortfolio> portfolios;
+
+    public PortfolioBatchResult(List<String> tickers, int numSimulations, long executionTime, List<BatchPortfolio> portfolios) {
+        this.tickers = tickers;
+        this.numSimulations = numSimulations;
+        this.executionTime = executionTime;
+        this.portfolios = portfolios;
+    }
+
+    public List<String> getTickers() {
+        return tickers;
+    }
+
+    public int getNumSimulations() {
+        return numSimulations;
+    }
+
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    public List<BatchPortfolio> getPortfolios() {
+        return portfolios;
+    }
+}
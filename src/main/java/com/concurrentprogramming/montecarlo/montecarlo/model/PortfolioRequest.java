@@ -3,6 +3,7 @@ package com.concurrentprogramming.montecarlo.montecarlo.model;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.List;
 import java.util.Map;
 
 @Setter
@@ -12,6 +13,25 @@ public class PortfolioRequest {
     private Map<String, Double> stockWeights;
     private int daysToPredict;
     private int numSimulations;
+    // Number of raw paths returned alongside the summary statistics
+    private int samplePaths = 20;
+    // Optional; the same seed gives identical results for sequential and parallel runs
+    private Long seed;
+    // COMPARE runs the simulation twice and reports both timings; normal traffic should use one strategy
+    private ExecutionMode executionMode = ExecutionMode.PARALLEL;
+    private GaussianSampler gaussianSampler = GaussianSampler.JDK;
+    private VarianceReduction varianceReduction = VarianceReduction.NONE;
+    // Adaptive mode: when set, simulations run in batches until the relative standard error of the mean final
+    // value reaches this target, or maxSimulations (default numSimulations) or maxMillis is exhausted
+    private Double targetRelativeError;
+    private Integer maxSimulations;
+    private long maxMillis = 30_000;
+    // Estimate returns from only the most recent lookbackDays daily returns per ticker (e.g. 252 for one trading
+    // year); unset uses the whole history
+    private Integer lookbackDays;
+    // Summary endpoints: final-value and daily quantiles to report, and confidence levels for VaR and CVaR
+    private List<Double> quantiles = SimulationSummary.DEFAULT_QUANTILES;
+    private List<Double> riskLevels = SimulationSummary.DEFAULT_RISK_LEVELS;
 
     public void updateWeights(){
         for (Map.Entry<String, Double> entry : stockWeights.entrySet()) {
@@ -0,0 +1,14 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Setter
+@Getter
+public class PriceAppendRequest {
+    // Trading day of the price; must be after the ticker's last day
+    private LocalDate date;
+    private double adjClose;
+}
@@ -0,0 +1,13 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// SIMD replacement for the exp steps of path generation. The implementation, VectorPriceKernel, uses the incubating
+// Vector API and is only compiled with -Pvector (src/vector/java); without it MonteCarloSimulation.VECTOR_KERNEL is
+// null and the scalar loops run.
+interface PriceKernel {
+
+    // Replaces the standard normals in values[from, to) with the daily growth factors exp(z * stdDev + mean)
+    void growthFactors(double[] values, int from, int to, double mean, double stdDev);
+
+    // Replaces values[from, to) with their exponentials
+    void exp(double[] values, int from, int to);
+}
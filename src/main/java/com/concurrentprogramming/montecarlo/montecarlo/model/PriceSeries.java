@@ -0,0 +1,127 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.Arrays;
+
+// Date-ordered adjusted closing prices of one ticker held in primitive arrays, with the daily change column
+// (AdjClose_dailyChange, NaN where unknown). Instances are immutable and shared through StockDataCache; the derived
+// StockStatistics are built on first use and live exactly as long as this version of the data. append() makes the
+// next version in O(1), reusing the arrays and updating already-built statistics incrementally.
+public final class PriceSeries {
+    private final String ticker;
+    private final long dataVersion;
+    private final int[] epochDays;
+    private final double[] prices;
+    private final double[] dailyChanges;
+    private final int size;
+    private final SeriesLineage lineage;
+    private volatile StockStatistics statistics;
+
+    public PriceSeries(String ticker, long dataVersion, int[] epochDays, double[] prices) {
+        this(ticker, dataVersion, epochDays, prices, null);
+    }
+
+    public PriceSeries(String ticker, long dataVersion, int[] epochDays, double[] prices, double[] dailyChanges) {
+        this(ticker, dataVersion, epochDays, prices, dailyChanges, prices.length, new SeriesLineage(prices.length), null);
+    }
+
+    private PriceSeries(String ticker, long dataVersion, int[] epochDays, double[] prices, double[] dailyChanges,
+                        int size, SeriesLineage lineage, StockStatistics statistics) {
+        this.ticker = ticker;
+        this.dataVersion = dataVersion;
+        this.epochDays = epochDays;
+        this.prices = prices;
+        this.dailyChanges = dailyChanges;
+        this.size = size;
+        this.lineage = lineage;
+        this.statistics = statistics;
+    }
+
+    public String getTicker() {
+        return ticker;
+    }
+
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getEpochDay(int index) {
+        return epochDays[index];
+    }
+
+    public double getPrice(int index) {
+        return prices[index];
+    }
+
+    // Relative change from the previous day's price, NaN for the first row or where the source had no value
+    public double getDailyChange(int index) {
+        return dailyChanges == null ? Double.NaN : dailyChanges[index];
+    }
+
+    public double getLastPrice() {
+        if (size == 0) {
+            throw new IllegalStateException("No historical stock data available for ticker: " + ticker);
+        }
+        return prices[size - 1];
+    }
+
+    // Returns the series with one more day; epochDay must be after the last day. Amortised O(1): the arrays are
+    // shared with this version when it is the newest one, and statistics built for this version are advanced by one
+    // return rather than recomputed.
+    public PriceSeries append(long newDataVersion, int epochDay, double price) {
+        if (size > 0 && epochDay <= epochDays[size - 1]) {
+            throw new IllegalArgumentException("Appended day must be after the last day of " + ticker);
+        }
+        double dailyChange = size == 0 ? Double.NaN : price / prices[size - 1] - 1.0;
+        int[] newDays = epochDays;
+        double[] newPrices = prices;
+        double[] newChanges = dailyChanges != null ? dailyChanges : filledChanges(prices.length);
+        SeriesLineage newLineage = lineage;
+        if (!lineage.claim(size)) {
+            newDays = Arrays.copyOf(epochDays, size);
+            newPrices = Arrays.copyOf(prices, size);
+            newChanges = Arrays.copyOf(newChanges, size);
+            newLineage = new SeriesLineage(size + 1);
+        }
+        if (size == newPrices.length) {
+            int capacity = Math.max(16, size * 2);
+            newDays = Arrays.copyOf(newDays, capacity);
+            newPrices = Arrays.copyOf(newPrices, capacity);
+            newChanges = Arrays.copyOf(newChanges, capacity);
+        }
+        newDays[size] = epochDay;
+        newPrices[size] = price;
+        newChanges[size] = dailyChange;
+
+        StockStatistics current = statistics;
+        StockStatistics next = current == null ? null : current.append(newDataVersion, epochDay, price, dailyChange);
+        return new PriceSeries(ticker, newDataVersion, newDays, newPrices, newChanges, size + 1, newLineage, next);
+    }
+
+    private double[] filledChanges(int length) {
+        double[] changes = new double[length];
+        Arrays.fill(changes, Double.NaN);
+        return changes;
+    }
+
+    public StockStatistics getStatistics() {
+        StockStatistics result = statistics;
+        if (result == null) {
+            synchronized (this) {
+                result = statistics;
+                if (result == null) {
+                    result = StockStatistics.fromPrices(ticker, dataVersion, epochDays, prices, dailyChanges, size);
+                    statistics = result;
+                }
+            }
+        }
+        return result;
+    }
+}
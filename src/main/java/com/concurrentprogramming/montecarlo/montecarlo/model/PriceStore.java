@@ -0,0 +1,83 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Binary columnar price file, one per ticker (<TICKER>.prices next to the CSV), written by PriceStoreImporter.
+// Little-endian, date-ordered, one row per trading day:
+//
+//   bytes 0-3    magic "MCPS"
+//   byte  4      format version (1)
+//   bytes 5-7    reserved (0)
+//   int32        rows
+//   int32        reserved (0)
+//   int32[rows]  epoch day, padded with zeros to a multiple of 8 bytes
+//   float64[rows] Adj Close
+//   float64[rows] AdjClose_dailyChange (NaN where the CSV has no value)
+//   float64[rows] Close_dailyChange (NaN where the CSV has no value)
+//
+// Reading maps the file and bulk-copies the columns it needs, with no per-row parsing.
+public final class PriceStore {
+    public static final String EXTENSION = ".prices";
+
+    private static final int MAGIC = 'M' | 'C' << 8 | 'P' << 16 | 'S' << 24;
+    private static final byte VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private PriceStore() {
+    }
+
+    public static void write(File file, int[] epochDays, double[] adjClose, double[] adjCloseDailyChange,
+                             double[] closeDailyChange) throws IOException {
+        int rows = epochDays.length;
+        int daysBytes = paddedDaysBytes(rows);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + daysBytes + 3 * rows * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).put(VERSION).put((byte) 0).putShort((short) 0).putInt(rows).putInt(0);
+        buffer.asIntBuffer().put(epochDays);
+        buffer.position(HEADER_BYTES + daysBytes);
+        buffer.asDoubleBuffer().put(adjClose).put(adjCloseDailyChange).put(closeDailyChange);
+
+        // Written beside the target and moved into place, so a reader never maps a half-written file
+        Path target = file.toPath();
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(temporary, buffer.array());
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Reads the dates, adjusted closes and their daily changes; dataVersion is the file's modification time
+    public static PriceSeries read(String ticker, File file) throws IOException {
+        long dataVersion = file.lastModified();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.size() < HEADER_BYTES || mapped.getInt(0) != MAGIC || mapped.get(4) != VERSION) {
+                throw new IOException("Not a version " + VERSION + " price store: " + file);
+            }
+            int rows = mapped.getInt(8);
+            int daysBytes = paddedDaysBytes(rows);
+            if (channel.size() < HEADER_BYTES + daysBytes + 3L * rows * Double.BYTES) {
+                throw new IOException("Truncated price store: " + file);
+            }
+            int[] epochDays = new int[rows];
+            double[] prices = new double[rows];
+            double[] dailyChanges = new double[rows];
+            mapped.position(HEADER_BYTES);
+            mapped.asIntBuffer().get(epochDays);
+            mapped.position(HEADER_BYTES + daysBytes);
+            mapped.asDoubleBuffer().get(prices).get(dailyChanges);
+            return new PriceSeries(ticker, dataVersion, epochDays, prices, dailyChanges);
+        }
+    }
+
+    private static int paddedDaysBytes(int rows) {
+        return (rows * Integer.BYTES + 7) & ~7;
+    }
+}
@@ -0,0 +1,112 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+// One-time conversion of the ticker CSVs (Date, Adj Close, AdjClose_dailyChange, Close_dailyChange) into PriceStore
+// files. Rows are ordered by date with the last row kept for a duplicated date, as StockDataCache does for CSVs.
+// Run from the project root:  java -cp <classpath> ...model.PriceStoreImporter [data directory]
+// StockDataCache uses a store file instead of its CSV as long as the store is not older than the CSV, so re-run the
+// import after updating a CSV (or delete the store file).
+public class PriceStoreImporter {
+
+    public static void main(String[] args) throws IOException {
+        File directory = new File(args.length > 0 ? args[0] : StockDataCache.getDataDirectory());
+        File[] csvFiles = directory.listFiles((dir, name) -> name.endsWith(".csv"));
+        if (csvFiles == null) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        Arrays.sort(csvFiles);
+        long start = System.currentTimeMillis();
+        for (File csv : csvFiles) {
+            String ticker = csv.getName().substring(0, csv.getName().length() - ".csv".length());
+            int rows = importCsv(csv, new File(directory, ticker + PriceStore.EXTENSION));
+            System.out.printf("%s: %d rows%n", ticker, rows);
+        }
+        System.out.printf("Imported %d tickers in %d ms%n", csvFiles.length, System.currentTimeMillis() - start);
+    }
+
+    // Method to import only the CSVs whose store file is missing or older than the CSV; returns how many it imported
+    public static int importStale(File directory) throws IOException {
+        File[] csvFiles = directory.listFiles((dir, name) -> name.endsWith(".csv"));
+        if (csvFiles == null) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        int imported = 0;
+        for (File csv : csvFiles) {
+            String ticker = csv.getName().substring(0, csv.getName().length() - ".csv".length());
+            File store = new File(directory, ticker + PriceStore.EXTENSION);
+            if (!store.exists() || store.lastModified() < csv.lastModified()) {
+                importCsv(csv, store);
+                imported++;
+            }
+        }
+        return imported;
+    }
+
+    // Method to convert one CSV file, returning the number of rows written
+    public static int importCsv(File csv, File store) throws IOException {
+        int[] epochDays = new int[1024];
+        double[][] columns = new double[3][1024];
+        int size = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(csv))) {
+            br.readLine();
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (size == epochDays.length) {
+                    epochDays = Arrays.copyOf(epochDays, size * 2);
+                    for (int c = 0; c < columns.length; c++) {
+                        columns[c] = Arrays.copyOf(columns[c], size * 2);
+                    }
+                }
+                epochDays[size] = StockDataCache.parseEpochDay(line);
+                int fieldStart = line.indexOf(',') + 1;
+                for (double[] column : columns) {
+                    int fieldEnd = line.indexOf(',', fieldStart);
+                    if (fieldEnd < 0) {
+                        fieldEnd = line.length();
+                    }
+                    column[size] = fieldStart >= fieldEnd ? Double.NaN : Double.parseDouble(line.substring(fieldStart, fieldEnd));
+                    fieldStart = Math.min(fieldEnd + 1, line.length());
+                }
+                size++;
+            }
+        }
+
+        int[] order = dateOrder(epochDays, size);
+        int[] sortedDays = new int[order.length];
+        double[][] sortedColumns = new double[columns.length][order.length];
+        for (int row = 0; row < order.length; row++) {
+            sortedDays[row] = epochDays[order[row]];
+            for (int c = 0; c < columns.length; c++) {
+                sortedColumns[c][row] = columns[c][order[row]];
+            }
+        }
+        PriceStore.write(store, sortedDays, sortedColumns[0], sortedColumns[1], sortedColumns[2]);
+        return order.length;
+    }
+
+    // Row indexes in date order, keeping only the last row of each date
+    private static int[] dateOrder(int[] epochDays, int size) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> epochDays[a] != epochDays[b] ? Integer.compare(epochDays[a], epochDays[b]) : Integer.compare(a, b));
+        int[] unique = new int[size];
+        int count = 0;
+        for (int index : order) {
+            if (count > 0 && epochDays[unique[count - 1]] == epochDays[index]) {
+                count--;
+            }
+            unique[count++] = index;
+        }
+        return Arrays.copyOf(unique, count);
+    }
+}
@@ -0,0 +1,28 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// One requested quantile of a streamed run: the final value and the value on every day below which that fraction
+// of the paths lie, estimated from the run's quantile sketches. Batch runs keep no daily sketches, so their daily is
+// null.
+public class QuantileBand {
+    private final double probability;
+    private final double finalValue;
+    private final double[] daily;
+
+    public QuantileBand(double probability, double finalValue, double[] daily) {
+        this.probability = probability;
+        this.finalValue = finalValue;
+        this.daily = daily;
+    }
+
+    public double getProbability() {
+        return probability;
+    }
+
+    public double getFinalValue() {
+        return finalValue;
+    }
+
+    public double[] getDaily() {
+        return daily;
+    }
+}
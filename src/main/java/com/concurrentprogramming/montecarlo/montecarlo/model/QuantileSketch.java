@@ -0,0 +1,159 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// Mergeable streaming quantile sketch with bounded relative error (log-linear buckets, in the manner of DDSketch and
+// HdrHistogram). A positive value's bucket is the top bits of its IEEE 754 representation: the exponent plus the
+// first MANTISSA_BITS bits of the mantissa, so a bucket is at most 2^-MANTISSA_BITS of its values wide and adding a
+// value is a shift and an increment, with no sorting. Memory grows with the range of the values (512 buckets per
+// doubling), not with how many are added. Merging adds the bucket counts, so the merged sketch is exactly the sketch
+// of all the values whatever order workers add and merge them in. Values that are not positive are kept as a count
+// and a sum only.
+public final class QuantileSketch {
+    private static final int MANTISSA_BITS = 9;
+    private static final int SHIFT = 52 - MANTISSA_BITS;
+    private static final int INITIAL_BUCKETS = 64;
+
+    private int[] counts = new int[0];
+    // Bucket index of counts[0]
+    private int offset;
+    private long count;
+    private long nonPositiveCount;
+    private double nonPositiveSum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(double value) {
+        count++;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        if (!(value > 0.0)) {
+            nonPositiveCount++;
+            nonPositiveSum += value;
+            return;
+        }
+        int bucket = (int) (Double.doubleToRawLongBits(value) >>> SHIFT);
+        int slot = bucket - offset;
+        if (slot < 0 || slot >= counts.length) {
+            slot = include(bucket);
+        }
+        counts[slot]++;
+    }
+
+    // Method to fold other into this sketch
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        count += other.count;
+        nonPositiveCount += other.nonPositiveCount;
+        nonPositiveSum += other.nonPositiveSum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        int first = 0;
+        int last = other.counts.length - 1;
+        while (first <= last && other.counts[first] == 0) {
+            first++;
+        }
+        while (last >= first && other.counts[last] == 0) {
+            last--;
+        }
+        if (first > last) {
+            return;
+        }
+        include(other.offset + first);
+        include(other.offset + last);
+        int shift = other.offset - offset;
+        for (int slot = first; slot <= last; slot++) {
+            counts[slot + shift] += other.counts[slot];
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // Value below which a fraction probability of the added values lie, interpolated linearly within its bucket
+    public double quantile(double probability) {
+        if (probability < 0.0 || probability > 1.0) {
+            throw new IllegalArgumentException("probability must be between 0 and 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = probability * count;
+        if (rank <= nonPositiveCount && nonPositiveCount > 0) {
+            return min + (Math.min(max, 0.0) - min) * (rank / nonPositiveCount);
+        }
+        double cumulative = nonPositiveCount;
+        for (int slot = 0; slot < counts.length; slot++) {
+            int bucketCount = counts[slot];
+            if (bucketCount > 0 && cumulative + bucketCount >= rank) {
+                double lower = Math.max(min, lowerBound(offset + slot));
+                double upper = Math.min(max, lowerBound(offset + slot + 1));
+                return lower + (upper - lower) * ((rank - cumulative) / bucketCount);
+            }
+            cumulative += bucketCount;
+        }
+        return max;
+    }
+
+    // Mean of the lowest fraction probability of the added values (the expected shortfall of that tail)
+    public double lowerTailMean(double probability) {
+        if (probability <= 0.0 || probability > 1.0) {
+            throw new IllegalArgumentException("probability must be in (0, 1]");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double tail = probability * count;
+        if (tail <= nonPositiveCount) {
+            return nonPositiveSum / nonPositiveCount;
+        }
+        double sum = nonPositiveSum;
+        double remaining = tail - nonPositiveCount;
+        for (int slot = 0; slot < counts.length && remaining > 0; slot++) {
+            int bucketCount = counts[slot];
+            if (bucketCount == 0) {
+                continue;
+            }
+            double lower = Math.max(min, lowerBound(offset + slot));
+            double upper = Math.min(max, lowerBound(offset + slot + 1));
+            // The lowest taken values of a bucket, assumed spread evenly across it
+            double taken = Math.min(bucketCount, remaining);
+            sum += taken * (lower + (upper - lower) * (taken / bucketCount) / 2);
+            remaining -= taken;
+        }
+        return sum / tail;
+    }
+
+    private static double lowerBound(int bucket) {
+        return Double.longBitsToDouble((long) bucket << SHIFT);
+    }
+
+    // Grows counts to cover bucket, leaving room to grow further in the same direction; returns bucket's slot
+    private int include(int bucket) {
+        if (counts.length == 0) {
+            counts = new int[INITIAL_BUCKETS];
+            offset = Math.max(0, bucket - INITIAL_BUCKETS / 2);
+            return bucket - offset;
+        }
+        int slot = bucket - offset;
+        if (slot >= 0 && slot < counts.length) {
+            return slot;
+        }
+        int low = Math.min(offset, bucket);
+        int high = Math.max(offset + counts.length - 1, bucket);
+        int length = Math.max(high - low + 1, counts.length * 2);
+        if (bucket < offset) {
+            low = Math.max(0, high - length + 1);
+        }
+        int[] grown = new int[length];
+        System.arraycopy(counts, 0, grown, offset - low, counts.length);
+        counts = grown;
+        offset = low;
+        return bucket - offset;
+    }
+}
@@ -0,0 +1,27 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// Value at risk and conditional value at risk (expected shortfall) of the final value at one confidence level, as
+// losses from the initial capital; negative when even the tail of the distribution ends in profit
+public class RiskMeasure {
+    private final double confidence;
+    private final double valueAtRisk;
+    private final double conditionalValueAtRisk;
+
+    public RiskMeasure(double confidence, double valueAtRisk, double conditionalValueAtRisk) {
+        this.confidence = confidence;
+        this.valueAtRisk = valueAtRisk;
+        this.conditionalValueAtRisk = conditionalValueAtRisk;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public double getValueAtRisk() {
+        return valueAtRisk;
+    }
+
+    public double getConditionalValueAtRisk() {
+        return conditionalValueAtRisk;
+    }
+}
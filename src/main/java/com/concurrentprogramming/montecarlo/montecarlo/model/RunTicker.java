@@ -0,0 +1,26 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// One ticker of a stored run, with the version of its price data the run was simulated from
+public class RunTicker {
+    private final String ticker;
+    private final double weight;
+    private final long dataVersion;
+
+    public RunTicker(String ticker, double weight, long dataVersion) {
+        this.ticker = ticker;
+        this.weight = weight;
+        this.dataVersion = dataVersion;
+    }
+
+    public String getTicker() {
+        return ticker;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public long getDataVersion() {
+        return dataVersion;
+    }
+}
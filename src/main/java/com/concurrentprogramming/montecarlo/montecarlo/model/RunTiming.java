@@ -0,0 +1,32 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// Outcome and wall-clock time of one run with a given execution mode
+public class RunTiming {
+    private final ExecutionMode executionMode;
+    private final double meanFinalValue;
+    private final double stdDev;
+    private final long executionTime;
+
+    public RunTiming(ExecutionMode executionMode, double meanFinalValue, double stdDev, long executionTime) {
+        this.executionMode = executionMode;
+        this.meanFinalValue = meanFinalValue;
+        this.stdDev = stdDev;
+        this.executionTime = executionTime;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public double getMeanFinalValue() {
+        return meanFinalValue;
+    }
+
+    public double getStdDev() {
+        return stdDev;
+    }
+
+    public long getExecutionTime() {
+        return executionTime;
+    }
+}
@@ -0,0 +1,21 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// Shared by a date-ordered series and every version appended from it, so appends can reuse the backing arrays.
+// Only the newest version may write the next row in place; any other version copies. Rows below a version's own
+// length are never written again, so older versions keep reading valid data without locking.
+final class SeriesLineage {
+    private int length;
+
+    SeriesLineage(int length) {
+        this.length = length;
+    }
+
+    // Claims the row after the first versionLength rows; false when another version already claimed it
+    synchronized boolean claim(int versionLength) {
+        if (length != versionLength) {
+            return false;
+        }
+        length++;
+        return true;
+    }
+}
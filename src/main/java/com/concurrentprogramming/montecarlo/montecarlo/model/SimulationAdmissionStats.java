@@ -0,0 +1,75 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+public class SimulationAdmissionStats {
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final int running;
+    private final int queued;
+    private final long admitted;
+    private final long rejected;
+    private final long completed;
+    private final double averageQueueWaitMillis;
+    private final double maxQueueWaitMillis;
+    private final double averageRunMillis;
+    private final double maxRunMillis;
+
+    public SimulationAdmissionStats(int maxConcurrent, int maxQueued, int running, int queued, long admitted,
+                                    long rejected, long completed, double averageQueueWaitMillis,
+                                    double maxQueueWaitMillis, double averageRunMillis, double maxRunMillis) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.running = running;
+        this.queued = queued;
+        this.admitted = admitted;
+        this.rejected = rejected;
+        this.completed = completed;
+        this.averageQueueWaitMillis = averageQueueWaitMillis;
+        this.maxQueueWaitMillis = maxQueueWaitMillis;
+        this.averageRunMillis = averageRunMillis;
+        this.maxRunMillis = maxRunMillis;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public int getRunning() {
+        return running;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public double getAverageQueueWaitMillis() {
+        return averageQueueWaitMillis;
+    }
+
+    public double getMaxQueueWaitMillis() {
+        return maxQueueWaitMillis;
+    }
+
+    public double getAverageRunMillis() {
+        return averageRunMillis;
+    }
+
+    public double getMaxRunMillis() {
+        return maxRunMillis;
+    }
+}
@@ -0,0 +1,108 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.concurrent.Future;
+
+// One asynchronous simulation request and its lifecycle. State changes are synchronized so a cancel racing with the
+// run finishing leaves the job in exactly one terminal state.
+public class SimulationJob {
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isTerminal() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id;
+    private final PortfolioRequest request;
+    private final SimulationProgress progress = new SimulationProgress();
+    private final long submittedAt = System.currentTimeMillis();
+    private State state = State.QUEUED;
+    private long startedAt;
+    private long finishedAt;
+    private SimulationSummary result;
+    private String error;
+    private Future<?> future;
+
+    public SimulationJob(String id, PortfolioRequest request) {
+        this.id = id;
+        this.request = request;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public PortfolioRequest getRequest() {
+        return request;
+    }
+
+    public SimulationProgress getProgress() {
+        return progress;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized SimulationSummary getResult() {
+        return result;
+    }
+
+    public synchronized void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    // Returns false when the job was cancelled while it waited in the queue
+    public synchronized boolean start() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        state = State.RUNNING;
+        startedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    public synchronized void succeed(SimulationSummary summary) {
+        if (state == State.RUNNING) {
+            finish(State.SUCCEEDED);
+            result = summary;
+        }
+    }
+
+    public synchronized void fail(String message) {
+        if (state == State.RUNNING) {
+            finish(State.FAILED);
+            error = message;
+        }
+    }
+
+    public synchronized void cancel() {
+        if (state.isTerminal()) {
+            return;
+        }
+        progress.cancel();
+        if (future != null) {
+            future.cancel(false);
+        }
+        finish(State.CANCELLED);
+    }
+
+    private void finish(State terminal) {
+        state = terminal;
+        finishedAt = System.currentTimeMillis();
+    }
+
+    // Paths the job will run at most: numSimulations, or the simulation budget of an adaptive run
+    public long getTotalPaths() {
+        if (request.getTargetRelativeError() != null && request.getMaxSimulations() != null) {
+            return request.getMaxSimulations();
+        }
+        return request.getNumSimulations();
+    }
+
+    public synchronized SimulationJobStatus toStatus() {
+        return new SimulationJobStatus(id, state, progress.getCompletedPaths(), getTotalPaths(),
+                progress.getCurrentEstimate(), submittedAt, startedAt, finishedAt, error);
+    }
+}
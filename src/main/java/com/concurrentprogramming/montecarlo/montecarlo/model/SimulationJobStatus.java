@@ -0,0 +1,67 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// Snapshot of a job for polling; times are epoch milliseconds, 0 until the job reaches that point
+public class SimulationJobStatus {
+    private final String id;
+    private final SimulationJob.State state;
+    private final long completedPaths;
+    private final long totalPaths;
+    private final Double currentEstimate;
+    private final long submittedAt;
+    private final long startedAt;
+    private final long finishedAt;
+    private final String error;
+
+    public SimulationJobStatus(String id, SimulationJob.State state, long completedPaths, long totalPaths,
+                               double currentEstimate, long submittedAt, long startedAt, long finishedAt, String error) {
+        this.id = id;
+        this.state = state;
+        this.completedPaths = completedPaths;
+        this.totalPaths = totalPaths;
+        this.currentEstimate = Double.isNaN(currentEstimate) ? null : currentEstimate;
+        this.submittedAt = submittedAt;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.error = error;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public SimulationJob.State getState() {
+        return state;
+    }
+
+    public long getCompletedPaths() {
+        return completedPaths;
+    }
+
+    public long getTotalPaths() {
+        return totalPaths;
+    }
+
+    public double getFractionComplete() {
+        return totalPaths == 0 ? 0.0 : Math.min(1.0, (double) completedPaths / totalPaths);
+    }
+
+    public Double getCurrentEstimate() {
+        return currentEstimate;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,36 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Shared fork/join pool for CPU-bound simulation work. Sized from the montecarlo.simulation.parallelism system property
+// (default: all available processors) and replaceable at startup through configure().
+public final class SimulationPool {
+    // Simulations per leaf task; fixed so the split tree does not depend on how many workers the pool has
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+
+    private static volatile ForkJoinPool pool = new ForkJoinPool(
+            Integer.getInteger("montecarlo.simulation.parallelism", Runtime.getRuntime().availableProcessors()));
+    private static volatile int chunkSize = Integer.getInteger("montecarlo.simulation.chunk-size", DEFAULT_CHUNK_SIZE);
+
+    private SimulationPool() {
+    }
+
+    public static ForkJoinPool get() {
+        return pool;
+    }
+
+    public static int getChunkSize() {
+        return chunkSize;
+    }
+
+    public static synchronized void configure(int parallelism, int simulationsPerChunk) {
+        if (parallelism > 0 && parallelism != pool.getParallelism()) {
+            ForkJoinPool previous = pool;
+            pool = new ForkJoinPool(parallelism);
+            previous.shutdown();
+        }
+        if (simulationsPerChunk > 0) {
+            chunkSize = simulationsPerChunk;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// What one run cost on the simulation workers: paths, time spent generating and folding them (summed over workers,
+// so it can exceed the wall time) and bytes allocated while doing so. Set on a Portfolio before a run; workers add
+// to it once per chunk.
+public class SimulationProfile {
+    private final LongAdder paths = new LongAdder();
+    private final LongAdder workerNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    void chunkCompleted(int chunkPaths, long nanos, long bytes) {
+        paths.add(chunkPaths);
+        workerNanos.add(nanos);
+        allocatedBytes.add(bytes);
+    }
+
+    public long getPaths() {
+        return paths.sum();
+    }
+
+    public long getWorkerNanos() {
+        return workerNanos.sum();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+}
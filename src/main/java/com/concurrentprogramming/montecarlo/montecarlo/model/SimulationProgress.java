@@ -0,0 +1,44 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Live view of a running simulation, shared between the chunks doing the work and whoever is watching it. Chunks
+// check for cancellation before they start and report their paths when they finish, so a cancelled run stops within
+// one chunk per worker. Safe to read and cancel from any thread.
+public class SimulationProgress {
+    private final LongAdder completedPaths = new LongAdder();
+    private final DoubleAdder finalValueSum = new DoubleAdder();
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Simulation cancelled");
+        }
+    }
+
+    public void chunkCompleted(int paths, double chunkFinalValueSum) {
+        completedPaths.add(paths);
+        finalValueSum.add(chunkFinalValueSum);
+    }
+
+    public long getCompletedPaths() {
+        return completedPaths.sum();
+    }
+
+    // Plain mean of the final values simulated so far, before any variance-reduction adjustment; NaN until a chunk
+    // has finished
+    public double getCurrentEstimate() {
+        long paths = completedPaths.sum();
+        return paths == 0 ? Double.NaN : finalValueSum.sum() / paths;
+    }
+}
@@ -3,59 +3,56 @@ package com.concurrentprogramming.montecarlo.montecarlo.model;
 import java.util.List;
 
 public class SimulationResult {
-    private final double sequentialMean;
-    private final double sequentialStdDev;
-    private final long sequentialExecutionTime;
-
-    private final double parallelMean;
-    private final double parallelStdDev;
-    private final long parallelExecutionTime;
-
-    private final List<List<Double>> allSimulations;
-
-    public SimulationResult(
-            double sequentialMean,
-            double sequentialStdDev,
-            long sequentialExecutionTime,
-            double parallelMean,
-            double parallelStdDev,
-            long parallelExecutionTime,
-            List<List<Double>> allSimulations
-    ) {
-        this.sequentialMean = sequentialMean;
-        this.sequentialStdDev = sequentialStdDev;
-        this.sequentialExecutionTime = sequentialExecutionTime;
-        this.parallelMean = parallelMean;
-        this.parallelStdDev = parallelStdDev;
-        this.parallelExecutionTime = parallelExecutionTime;
-        this.allSimulations = allSimulations;
+    private final ExecutionMode executionMode;
+    private final double meanFinalValue;
+    private final double stdDev;
+    private final double standardError;
+    private final long executionTime;
+
+    private final List<double[]> allSimulations;
+
+    // Only present for ExecutionMode.COMPARE: one entry per run, in the order they ran
+    private final List<RunTiming> comparison;
+
+    public SimulationResult(RunTiming run, double standardError, List<double[]> allSimulations) {
+        this(run, standardError, allSimulations, null);
     }
 
-    public double getSequentialMean() {
-        return sequentialMean;
+    public SimulationResult(RunTiming run, double standardError, List<double[]> allSimulations, List<RunTiming> comparison) {
+        this.executionMode = run.getExecutionMode();
+        this.meanFinalValue = run.getMeanFinalValue();
+        this.stdDev = run.getStdDev();
+        this.standardError = standardError;
+        this.executionTime = run.getExecutionTime();
+        this.allSimulations = allSimulations;
+        this.comparison = comparison;
     }
 
-    public double getSequentialStdDev() {
-        return sequentialStdDev;
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
     }
 
-    public long getSequentialExecutionTime() {
-        return sequentialExecutionTime;
+    public double getMeanFinalValue() {
+        return meanFinalValue;
     }
 
-    public double getParallelMean() {
-        return parallelMean;
+    public double getStdDev() {
+        return stdDev;
     }
 
-    public double getParallelStdDev() {
-        return parallelStdDev;
+    public double getStandardError() {
+        return standardError;
     }
 
-    public long getParallelExecutionTime() {
-        return parallelExecutionTime;
+    public long getExecutionTime() {
+        return executionTime;
     }
 
-    public List<List<Double>> getAllSimulations() {
+    public List<double[]> getAllSimulations() {
         return allSimulations;
     }
+
+    public List<RunTiming> getComparison() {
+        return comparison;
+    }
 }
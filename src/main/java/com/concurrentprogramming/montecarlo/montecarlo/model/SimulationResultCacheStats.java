@@ -0,0 +1,84 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+public class SimulationResultCacheStats {
+    private final int size;
+    private final int maxEntries;
+    private final long bytes;
+    private final long maxBytes;
+    private final long ttlSeconds;
+    private final long hits;
+    private final long sharedRuns;
+    private final long misses;
+    private final long uncached;
+    private final long expirations;
+    private final long evictions;
+
+    public SimulationResultCacheStats(int size, int maxEntries, long bytes, long maxBytes, long ttlSeconds, long hits,
+                                      long sharedRuns, long misses, long uncached, long expirations, long evictions) {
+        this.size = size;
+        this.maxEntries = maxEntries;
+        this.bytes = bytes;
+        this.maxBytes = maxBytes;
+        this.ttlSeconds = ttlSeconds;
+        this.hits = hits;
+        this.sharedRuns = sharedRuns;
+        this.misses = misses;
+        this.uncached = uncached;
+        this.expirations = expirations;
+        this.evictions = evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    // Estimated size of the cached and running results
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    // Requests answered from a finished result
+    public long getHits() {
+        return hits;
+    }
+
+    // Requests that waited for an identical run already in progress instead of starting their own
+    public long getSharedRuns() {
+        return sharedRuns;
+    }
+
+    // Requests that ran a simulation
+    public long getMisses() {
+        return misses;
+    }
+
+    // Requests whose result was too large to cache, so they always ran
+    public long getUncached() {
+        return uncached;
+    }
+
+    public double getHitRate() {
+        long lookups = hits + sharedRuns + misses;
+        return lookups == 0 ? 0.0 : (double) (hits + sharedRuns) / lookups;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+}
@@ -0,0 +1,117 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.time.Instant;
+import java.util.List;
+
+// A persisted simulation run: what was asked for, the summary statistics and, when loaded individually, the
+// percentile bands of the simulated portfolio value
+public class SimulationRun {
+    private final long id;
+    private final Instant createdAt;
+    private final String endpoint;
+    private final List<RunTicker> tickers;
+    private final double initialCapital;
+    private final int daysToPredict;
+    private final long numSimulations;
+    private final Long seed;
+    private final VarianceReduction varianceReduction;
+    private final Integer lookbackDays;
+    private final long executionTime;
+    private final double meanFinalValue;
+    private final double standardError;
+    private final double stdDevFinalValue;
+    private final double minFinalValue;
+    private final double maxFinalValue;
+    private final List<PercentileBand> bands;
+
+    public SimulationRun(long id, Instant createdAt, String endpoint, List<RunTicker> tickers, double initialCapital,
+                         int daysToPredict, long numSimulations, Long seed, VarianceReduction varianceReduction,
+                         Integer lookbackDays, long executionTime, double meanFinalValue, double standardError,
+                         double stdDevFinalValue, double minFinalValue, double maxFinalValue, List<PercentileBand> bands) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.endpoint = endpoint;
+        this.tickers = tickers;
+        this.initialCapital = initialCapital;
+        this.daysToPredict = daysToPredict;
+        this.numSimulations = numSimulations;
+        this.seed = seed;
+        this.varianceReduction = varianceReduction;
+        this.lookbackDays = lookbackDays;
+        this.executionTime = executionTime;
+        this.meanFinalValue = meanFinalValue;
+        this.standardError = standardError;
+        this.stdDevFinalValue = stdDevFinalValue;
+        this.minFinalValue = minFinalValue;
+        this.maxFinalValue = maxFinalValue;
+        this.bands = bands;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public List<RunTicker> getTickers() {
+        return tickers;
+    }
+
+    public double getInitialCapital() {
+        return initialCapital;
+    }
+
+    public int getDaysToPredict() {
+        return daysToPredict;
+    }
+
+    public long getNumSimulations() {
+        return numSimulations;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public VarianceReduction getVarianceReduction() {
+        return varianceReduction;
+    }
+
+    public Integer getLookbackDays() {
+        return lookbackDays;
+    }
+
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    public double getMeanFinalValue() {
+        return meanFinalValue;
+    }
+
+    public double getStandardError() {
+        return standardError;
+    }
+
+    public double getStdDevFinalValue() {
+        return stdDevFinalValue;
+    }
+
+    public double getMinFinalValue() {
+        return minFinalValue;
+    }
+
+    public double getMaxFinalValue() {
+        return maxFinalValue;
+    }
+
+    public List<PercentileBand> getBands() {
+        return bands;
+    }
+}
@@ -0,0 +1,203 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Running accumulator for portfolio paths. Each path is folded in as it is generated (Welford mean/variance of the
+// final value, min/max, per-day mean and variance, quantile sketches of the final value and of every day) and can then
+// be discarded; only the first sampleSize paths are kept. Two accumulators can be merged, so workers can fold their own
+// paths and combine at the end, and quantiles, VaR and CVaR need O(days) memory however many paths are run. The daily
+// sketches take a few KB per day, so callers keeping many accumulators at once can leave them out; daily quantiles
+// are then not available.
+public class SimulationStatistics {
+    private final int days;
+    private final int sampleSize;
+    private long count;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final double[] dailyMean;
+    private final double[] dailyM2;
+    private final QuantileSketch finalValueSketch;
+    private final QuantileSketch[] dailySketches;
+    private final List<double[]> samplePaths;
+    private final MeanEstimator estimator;
+
+    public SimulationStatistics(int daysToPredict, int sampleSize) {
+        this(daysToPredict, sampleSize, new MeanEstimator(VarianceReduction.NONE, 0.0));
+    }
+
+    // estimator receives the variance-reduced samples of the mean final value, which may differ from single paths
+    public SimulationStatistics(int daysToPredict, int sampleSize, MeanEstimator estimator) {
+        this(daysToPredict, sampleSize, estimator, true);
+    }
+
+    public SimulationStatistics(int daysToPredict, int sampleSize, MeanEstimator estimator, boolean dailyQuantiles) {
+        this.days = daysToPredict + 1;
+        this.sampleSize = sampleSize;
+        this.dailyMean = new double[days];
+        this.dailyM2 = new double[days];
+        this.finalValueSketch = new QuantileSketch();
+        this.dailySketches = dailyQuantiles ? new QuantileSketch[days] : null;
+        for (int day = 0; dailyQuantiles && day < days; day++) {
+            dailySketches[day] = new QuantileSketch();
+        }
+        this.samplePaths = new ArrayList<>(Math.min(sampleSize, 64));
+        this.estimator = estimator;
+    }
+
+    // Method to fold one path of daysToPredict + 1 portfolio values into the running statistics
+    public void addPath(double[] portfolioValues) {
+        count++;
+        double finalValue = portfolioValues[days - 1];
+        double delta = finalValue - mean;
+        mean += delta / count;
+        m2 += delta * (finalValue - mean);
+        if (finalValue < min) {
+            min = finalValue;
+        }
+        if (finalValue > max) {
+            max = finalValue;
+        }
+        finalValueSketch.add(finalValue);
+
+        for (int day = 0; day < days; day++) {
+            double value = portfolioValues[day];
+            double dayDelta = value - dailyMean[day];
+            dailyMean[day] += dayDelta / count;
+            dailyM2[day] += dayDelta * (value - dailyMean[day]);
+        }
+        if (dailySketches != null) {
+            for (int day = 0; day < days; day++) {
+                dailySketches[day].add(portfolioValues[day]);
+            }
+        }
+
+        if (samplePaths.size() < sampleSize) {
+            samplePaths.add(portfolioValues.clone());
+        }
+    }
+
+    // Method to combine another accumulator into this one (Chan et al. parallel variance update)
+    public void merge(SimulationStatistics other) {
+        estimator.merge(other.estimator);
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+            System.arraycopy(other.dailyMean, 0, dailyMean, 0, days);
+            System.arraycopy(other.dailyM2, 0, dailyM2, 0, days);
+        } else {
+            long total = count + other.count;
+            double weight = (double) other.count / total;
+            double productWeight = (double) count * other.count / total;
+            double delta = other.mean - mean;
+            mean += delta * weight;
+            m2 += other.m2 + delta * delta * productWeight;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            for (int day = 0; day < days; day++) {
+                double dayDelta = other.dailyMean[day] - dailyMean[day];
+                dailyMean[day] += dayDelta * weight;
+                dailyM2[day] += other.dailyM2[day] + dayDelta * dayDelta * productWeight;
+            }
+            count = total;
+        }
+        finalValueSketch.merge(other.finalValueSketch);
+        for (int day = 0; dailySketches != null && day < days; day++) {
+            dailySketches[day].merge(other.dailySketches[day]);
+        }
+        for (double[] path : other.samplePaths) {
+            if (samplePaths.size() >= sampleSize) {
+                break;
+            }
+            samplePaths.add(path);
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public MeanEstimator getEstimator() {
+        return estimator;
+    }
+
+    public double getStandardDeviation() {
+        return count == 0 ? 0.0 : Math.sqrt(m2 / count);
+    }
+
+    public double getMin() {
+        return count == 0 ? 0.0 : min;
+    }
+
+    public double getMax() {
+        return count == 0 ? 0.0 : max;
+    }
+
+    public double[] getDailyMean() {
+        return dailyMean.clone();
+    }
+
+    public double[] getDailyStandardDeviation() {
+        double[] dailyStdDev = new double[days];
+        if (count > 0) {
+            for (int day = 0; day < days; day++) {
+                dailyStdDev[day] = Math.sqrt(dailyM2[day] / count);
+            }
+        }
+        return dailyStdDev;
+    }
+
+    // Estimated final value below which a fraction probability of the paths end
+    public double getFinalValueQuantile(double probability) {
+        return count == 0 ? 0.0 : finalValueSketch.quantile(probability);
+    }
+
+    // Estimated portfolio value below which a fraction probability of the paths lie, for every day; null when the
+    // daily sketches were left out
+    public double[] getDailyQuantile(double probability) {
+        if (dailySketches == null) {
+            return null;
+        }
+        double[] dailyQuantile = new double[days];
+        if (count > 0) {
+            for (int day = 0; day < days; day++) {
+                dailyQuantile[day] = dailySketches[day].quantile(probability);
+            }
+        }
+        return dailyQuantile;
+    }
+
+    // Loss from the initial value not exceeded with probability confidence over the horizon
+    public double getValueAtRisk(double confidence) {
+        checkConfidence(confidence);
+        return count == 0 ? 0.0 : dailyMean[0] - finalValueSketch.quantile(1.0 - confidence);
+    }
+
+    // Expected loss from the initial value in the worst 1 - confidence of paths (expected shortfall)
+    public double getConditionalValueAtRisk(double confidence) {
+        checkConfidence(confidence);
+        return count == 0 ? 0.0 : dailyMean[0] - finalValueSketch.lowerTailMean(1.0 - confidence);
+    }
+
+    private static void checkConfidence(double confidence) {
+        if (!(confidence > 0.0 && confidence < 1.0)) {
+            throw new IllegalArgumentException("confidence must be between 0 and 1");
+        }
+    }
+
+    public List<double[]> getSamplePaths() {
+        return samplePaths;
+    }
+}
@@ -0,0 +1,78 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+// Independent random streams for one simulation run, one per chunk of SimulationPool.getChunkSize() simulations.
+// The streams are split from a single L64X128MixRandom seeded with the run seed, always in chunk order, and are
+// created before the chunks that use them start. A chunk therefore draws the same numbers whichever thread runs it,
+// however many threads there are, and however many simulations the run ends up with.
+public final class SimulationStreams {
+    private static final RandomGeneratorFactory<RandomGenerator.SplittableGenerator> FACTORY =
+            RandomGeneratorFactory.of("L64X128MixRandom");
+
+    private final long seed;
+    private final int chunkSize;
+    private final RandomGenerator.SplittableGenerator root;
+    private final RandomGenerator.SplittableGenerator auxiliary;
+    private volatile RandomGenerator.SplittableGenerator[] streams;
+
+    public SimulationStreams(long seed, int chunkSize) {
+        this(seed, 0, chunkSize);
+    }
+
+    public SimulationStreams(long seed, int numSimulations, int chunkSize) {
+        this.seed = seed;
+        this.chunkSize = chunkSize;
+        this.root = FACTORY.create(seed);
+        this.auxiliary = root.split();
+        this.streams = new RandomGenerator.SplittableGenerator[0];
+        ensureCapacity(numSimulations);
+    }
+
+    public static long randomSeed() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    // Method to split streams for every chunk below simulation index to; call before running those chunks
+    public synchronized void ensureCapacity(int to) {
+        int chunks = Math.max(1, (to + chunkSize - 1) / chunkSize);
+        RandomGenerator.SplittableGenerator[] current = streams;
+        if (chunks <= current.length) {
+            return;
+        }
+        RandomGenerator.SplittableGenerator[] grown = Arrays.copyOf(current, chunks);
+        for (int i = current.length; i < chunks; i++) {
+            grown[i] = root.split();
+        }
+        streams = grown;
+    }
+
+    // Run-level random values that are not tied to a chunk, e.g. the digital shifts of randomised Sobol replicates
+    public int[][] randomShifts(int replicates, int dimensions) {
+        int[][] shifts = new int[replicates][dimensions];
+        synchronized (auxiliary) {
+            for (int[] shift : shifts) {
+                for (int d = 0; d < dimensions; d++) {
+                    shift[d] = auxiliary.nextInt();
+                }
+            }
+        }
+        return shifts;
+    }
+
+    // Stream for the chunk starting at simulation index from; only one task may use it at a time
+    public RandomGenerator forChunk(int from) {
+        return streams[from / chunkSize];
+    }
+}
@@ -0,0 +1,145 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SimulationSummary {
+    public static final List<Double> DEFAULT_QUANTILES = List.of(0.05, 0.5, 0.95);
+    public static final List<Double> DEFAULT_RISK_LEVELS = List.of(0.95, 0.99);
+
+    // Throws IllegalArgumentException unless every quantile is in [0, 1] and every risk level in (0, 1), so requests
+    // can be rejected before they run; null lists mean the defaults
+    public static void checkOptions(List<Double> quantiles, List<Double> riskLevels) {
+        for (Double probability : quantiles == null ? DEFAULT_QUANTILES : quantiles) {
+            if (probability == null || !(probability >= 0.0 && probability <= 1.0)) {
+                throw new IllegalArgumentException("quantiles must be between 0 and 1");
+            }
+        }
+        for (Double confidence : riskLevels == null ? DEFAULT_RISK_LEVELS : riskLevels) {
+            if (confidence == null || !(confidence > 0.0 && confidence < 1.0)) {
+                throw new IllegalArgumentException("riskLevels must be strictly between 0 and 1");
+            }
+        }
+    }
+
+    private final long numSimulations;
+    private final VarianceReduction varianceReduction;
+    private final double meanFinalValue;
+    private final double standardError;
+    private final double stdDevFinalValue;
+    private final double minFinalValue;
+    private final double maxFinalValue;
+    private final double[] dailyMean;
+    private final double[] dailyLowerBand;
+    private final double[] dailyUpperBand;
+    private final List<QuantileBand> quantiles;
+    private final List<RiskMeasure> risk;
+    private final List<double[]> samplePaths;
+    private final long executionTime;
+    private final ConvergenceReport convergence;
+
+    public SimulationSummary(SimulationStatistics statistics, long executionTime) {
+        this(statistics, executionTime, null);
+    }
+
+    public SimulationSummary(SimulationStatistics statistics, long executionTime, ConvergenceReport convergence) {
+        this(statistics, executionTime, convergence, DEFAULT_QUANTILES, DEFAULT_RISK_LEVELS);
+    }
+
+    // quantiles are probabilities in [0, 1] and riskLevels confidences in (0, 1); null uses the defaults
+    public SimulationSummary(SimulationStatistics statistics, long executionTime, ConvergenceReport convergence,
+                             List<Double> quantiles, List<Double> riskLevels) {
+        this.numSimulations = statistics.getCount();
+        this.varianceReduction = statistics.getEstimator().getMode();
+        // Variance-reduced estimate; the distribution fields below describe the simulated paths themselves
+        this.meanFinalValue = statistics.getEstimator().getEstimate();
+        this.standardError = statistics.getEstimator().getStandardError();
+        this.stdDevFinalValue = statistics.getStandardDeviation();
+        this.minFinalValue = statistics.getMin();
+        this.maxFinalValue = statistics.getMax();
+        this.dailyMean = statistics.getDailyMean();
+        double[] dailyStdDev = statistics.getDailyStandardDeviation();
+        // One standard deviation either side of the daily mean
+        this.dailyLowerBand = new double[dailyMean.length];
+        this.dailyUpperBand = new double[dailyMean.length];
+        for (int day = 0; day < dailyMean.length; day++) {
+            dailyLowerBand[day] = dailyMean[day] - dailyStdDev[day];
+            dailyUpperBand[day] = dailyMean[day] + dailyStdDev[day];
+        }
+        this.quantiles = new ArrayList<>();
+        for (double probability : quantiles == null ? DEFAULT_QUANTILES : quantiles) {
+            this.quantiles.add(new QuantileBand(probability, statistics.getFinalValueQuantile(probability),
+                    statistics.getDailyQuantile(probability)));
+        }
+        this.risk = new ArrayList<>();
+        for (double confidence : riskLevels == null ? DEFAULT_RISK_LEVELS : riskLevels) {
+            risk.add(new RiskMeasure(confidence, statistics.getValueAtRisk(confidence),
+                    statistics.getConditionalValueAtRisk(confidence)));
+        }
+        this.samplePaths = statistics.getSamplePaths();
+        this.executionTime = executionTime;
+        this.convergence = convergence;
+    }
+
+    public long getNumSimulations() {
+        return numSimulations;
+    }
+
+    public double getMeanFinalValue() {
+        return meanFinalValue;
+    }
+
+    public VarianceReduction getVarianceReduction() {
+        return varianceReduction;
+    }
+
+    public double getStandardError() {
+        return standardError;
+    }
+
+    public double getStdDevFinalValue() {
+        return stdDevFinalValue;
+    }
+
+    public double getMinFinalValue() {
+        return minFinalValue;
+    }
+
+    public double getMaxFinalValue() {
+        return maxFinalValue;
+    }
+
+    public double[] getDailyMean() {
+        return dailyMean;
+    }
+
+    public double[] getDailyLowerBand() {
+        return dailyLowerBand;
+    }
+
+    public double[] getDailyUpperBand() {
+        return dailyUpperBand;
+    }
+
+    // Estimated from mergeable quantile sketches, not from sorted paths
+    public List<QuantileBand> getQuantiles() {
+        return quantiles;
+    }
+
+    public List<RiskMeasure> getRisk() {
+        return risk;
+    }
+
+    public List<double[]> getSamplePaths() {
+        return samplePaths;
+    }
+
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    // Only present for adaptive runs
+    public ConvergenceReport getConvergence() {
+        return convergence;
+    }
+}
@@ -0,0 +1,62 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+// Recursively splits the simulation range [from, to) on chunk boundaries, runs each chunk with its own buffers and
+// reduces the per-chunk results pairwise, left before right, so results come back in simulation order.
+// A sequential task walks the same split tree in the calling thread, so it reduces in exactly the same order.
+public class SimulationTask<R> extends RecursiveTask<R> {
+    public interface Chunk<R> {
+        R simulate(int from, int to);
+    }
+
+    private final int from;
+    private final int to;
+    private final int chunkSize;
+    private final Chunk<R> chunk;
+    private final BinaryOperator<R> merger;
+    private final boolean parallel;
+
+    public SimulationTask(int from, int to, int chunkSize, Chunk<R> chunk, BinaryOperator<R> merger) {
+        this(from, to, chunkSize, chunk, merger, true);
+    }
+
+    public SimulationTask(int from, int to, int chunkSize, Chunk<R> chunk, BinaryOperator<R> merger, boolean parallel) {
+        this.from = from;
+        this.to = to;
+        this.chunkSize = chunkSize;
+        this.chunk = chunk;
+        this.merger = merger;
+        this.parallel = parallel;
+    }
+
+    // Runs the task in the calling thread when sequential, otherwise on the shared simulation pool
+    public R execute() {
+        return parallel ? SimulationPool.get().invoke(this) : compute();
+    }
+
+    @Override
+    protected R compute() {
+        if (to - from <= chunkSize) {
+            return chunk.simulate(from, to);
+        }
+        int chunks = (to - from + chunkSize - 1) / chunkSize;
+        int middle = from + (chunks / 2) * chunkSize;
+        SimulationTask<R> left = new SimulationTask<>(from, middle, chunkSize, chunk, merger, parallel);
+        SimulationTask<R> right = new SimulationTask<>(middle, to, chunkSize, chunk, merger, parallel);
+        if (!parallel) {
+            return merge(left.compute(), right.compute());
+        }
+        right.fork();
+        R leftResult = left.compute();
+        return merge(leftResult, right.join());
+    }
+
+    private R merge(R left, R right) {
+        long start = System.nanoTime();
+        R merged = merger.apply(left, right);
+        EngineMetrics.merged(System.nanoTime() - start);
+        return merged;
+    }
+}
@@ -0,0 +1,84 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+// Sobol low-discrepancy points in up to MAX_DIMENSIONS dimensions with 32-bit resolution. Direction numbers are the
+// Joe-Kuo (new-joe-kuo-6.21201) primitive polynomials and initial values; dimension 0 is the van der Corput sequence.
+// Points are generated directly from the Gray code of their index, so any chunk can start anywhere in the sequence.
+public final class SobolSequence {
+    private static final int BITS = 32;
+    private static final double SCALE = 1.0 / 4294967296.0;
+
+    // {degree s, polynomial coefficients a, m_1 .. m_s} for dimensions 1 onwards
+    private static final int[][] DIRECTION_DATA = {
+            {1, 0, 1},
+            {2, 1, 1, 3},
+            {3, 1, 1, 3, 1},
+            {3, 2, 1, 1, 1},
+            {4, 1, 1, 1, 3, 3},
+            {4, 4, 1, 3, 5, 13},
+            {5, 2, 1, 1, 5, 5, 17},
+            {5, 4, 1, 1, 5, 5, 5},
+            {5, 7, 1, 1, 7, 11, 19},
+            {5, 11, 1, 1, 5, 1, 1},
+            {5, 13, 1, 1, 1, 3, 11},
+            {5, 14, 1, 3, 5, 5, 31},
+            {6, 1, 1, 3, 3, 9, 7, 49},
+            {6, 13, 1, 1, 1, 15, 21, 21},
+            {6, 16, 1, 3, 1, 13, 27, 49},
+            {6, 19, 1, 1, 1, 15, 7, 5},
+            {6, 22, 1, 3, 1, 15, 13, 25},
+            {6, 25, 1, 1, 5, 5, 19, 61},
+            {7, 1, 1, 3, 7, 11, 23, 15, 103},
+            {7, 4, 1, 3, 7, 13, 13, 15, 69}
+    };
+
+    public static final int MAX_DIMENSIONS = DIRECTION_DATA.length + 1;
+
+    private static final int[][] DIRECTIONS = new int[MAX_DIMENSIONS][BITS];
+
+    static {
+        for (int k = 0; k < BITS; k++) {
+            DIRECTIONS[0][k] = 1 << (BITS - 1 - k);
+        }
+        for (int d = 1; d < MAX_DIMENSIONS; d++) {
+            int[] data = DIRECTION_DATA[d - 1];
+            int s = data[0];
+            int a = data[1];
+            int[] v = DIRECTIONS[d];
+            for (int k = 0; k < s; k++) {
+                v[k] = data[2 + k] << (BITS - 1 - k);
+            }
+            for (int k = s; k < BITS; k++) {
+                int value = v[k - s] ^ (v[k - s] >>> s);
+                for (int j = 1; j < s; j++) {
+                    if (((a >>> (s - 1 - j)) & 1) != 0) {
+                        value ^= v[k - j];
+                    }
+                }
+                v[k] = value;
+            }
+        }
+    }
+
+    private SobolSequence() {
+    }
+
+    // Method to write the first dimensions coordinates of point index (as unsigned 32-bit fractions) into point
+    public static void point(long index, int dimensions, int[] point) {
+        long gray = index ^ (index >>> 1);
+        for (int d = 0; d < dimensions; d++) {
+            int value = 0;
+            long bits = gray;
+            for (int k = 0; bits != 0 && k < BITS; k++, bits >>>= 1) {
+                if ((bits & 1) != 0) {
+                    value ^= DIRECTIONS[d][k];
+                }
+            }
+            point[d] = value;
+        }
+    }
+
+    // Maps a digitally shifted coordinate to the open interval (0, 1)
+    public static double toUnitInterval(int coordinate, int shift) {
+        return ((Integer.toUnsignedLong(coordinate ^ shift)) + 0.5) * SCALE;
+    }
+}
@@ -1,144 +1,105 @@
 package com.concurrentprogramming.montecarlo.montecarlo.model;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class Stock {
     private final String ticker;
-    public final TreeMap<LocalDate, Double> stockData;
-    private final TreeMap<LocalDate, Double> dailyPctChange;
-    private Double[] logReturns;
-    private final List<List<Double>> allSimulations;
-    private final List<Double> finalPrices;
+    private final PriceSeries priceSeries;
+    private double[] finalPrices;
+    private final StockStatistics statistics;
+    private final MonteCarloSimulation simulation;
 
     public String getTicker() {
         return ticker;
     }
 
     public Stock(String ticker) {
+        this(ticker, 0);
+    }
+
+    // lookbackDays limits the statistics to the most recent returns; 0 uses the whole history
+    public Stock(String ticker, int lookbackDays) {
         this.ticker = ticker;
-        this.stockData = getStockData(ticker);
-        this.dailyPctChange = new TreeMap<>();
-        this.allSimulations = new ArrayList<>();
-        this.finalPrices = new ArrayList<>();
+        this.priceSeries = StockDataCache.getInstance().get(ticker);
+        this.finalPrices = new double[0];
+        this.statistics = priceSeries.isEmpty() ? null : priceSeries.getStatistics().withLookback(lookbackDays);
+        this.simulation = statistics == null ? null : new MonteCarloSimulation(statistics);
+    }
+
+    public PriceSeries getPriceSeries() {
+        return priceSeries;
+    }
+
+    public StockStatistics getStatistics() {
+        return statistics;
+    }
+
+    public double getLastPrice() {
+        return priceSeries.getLastPrice();
     }
 
-    public Double[] getLogReturns() {
-        if (this.logReturns == null || this.logReturns.length == 0) {
-            calculateLogReturns();
+    public double[] getLogReturns() {
+        if (statistics == null) {
+            return new double[0];
         }
-        return this.logReturns;
+        double[] logReturns = new double[statistics.getReturnCount()];
+        for (int i = 0; i < logReturns.length; i++) {
+            logReturns[i] = statistics.getLogReturn(i);
+        }
+        return logReturns;
     }
 
     public List<Double> performSimulation(int daysToPredict) {
-        if (stockData.isEmpty()) {
-            throw new IllegalStateException("No historical stock data available for prediction.");
-        }
-        if (this.logReturns == null || this.logReturns.length == 0) {
-            calculateLogReturns();
+        double[] simulatedPrices = performSimulation(daysToPredict, null);
+        List<Double> prices = new ArrayList<>(simulatedPrices.length);
+        for (double price : simulatedPrices) {
+            prices.add(price);
         }
+        return prices;
+    }
+
+    // Writes daysToPredict + 1 prices into the supplied buffer (reused across paths) and returns it
+    public double[] performSimulation(int daysToPredict, double[] prices) {
+        return performSimulation(daysToPredict, prices, ThreadLocalRandom.current());
+    }
+
+    public double[] performSimulation(int daysToPredict, double[] prices, RandomGenerator random) {
+        return performSimulation(daysToPredict, prices, random, GaussianSampler.JDK);
+    }
 
-        MonteCarloSimulation simulation = new MonteCarloSimulation(logReturns);
-        var simulatedLogReturns = simulation.performMontecarloSimulation(daysToPredict);
-        List<Double> simulatedReturns = simulatedLogReturns.stream()
-                .map(Math::exp)
-                .toList();
-
-        List<Double> simulatedPrices = new ArrayList<>();
-        Double currentPrice = this.stockData.lastEntry().getValue();
-        simulatedPrices.add(currentPrice);
-        for (Double ret : simulatedReturns) {
-            currentPrice = currentPrice * ret;
-            simulatedPrices.add(currentPrice);
+    public double[] performSimulation(int daysToPredict, double[] prices, RandomGenerator random, GaussianSampler sampler) {
+        if (priceSeries.isEmpty()) {
+            throw new IllegalStateException("No historical stock data available for prediction.");
         }
-        return simulatedPrices;
+        return simulation.simulatePrices(statistics.getLastPrice(), daysToPredict, prices, random, sampler);
     }
 
     public void performMultipleSimulations(int daysToPredict, int numSimulations) {
-        allSimulations.clear();
-        finalPrices.clear();
+        finalPrices = new double[numSimulations];
+        double[] prices = new double[daysToPredict + 1];
 
         for (int i = 0; i < numSimulations; i++) {
-            List<Double> simulatedPrices = performSimulation(daysToPredict);
-            allSimulations.add(simulatedPrices);
-            finalPrices.add(simulatedPrices.get(simulatedPrices.size() - 1));
+            performSimulation(daysToPredict, prices);
+            finalPrices[i] = prices[daysToPredict];
         }
     }
 
-    public List<Double> getFinalPrices() {
+    public double[] getFinalPrices() {
         return finalPrices;
     }
 
     public double getMeanFinalPrice() {
-        return finalPrices.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+        return Arrays.stream(finalPrices).average().orElse(0.0);
     }
 
     public double getPercentageChangeFromInitialToMean() {
-        double initialPrice = stockData.lastEntry().getValue();
+        double initialPrice = getLastPrice();
         double meanFinalPrice = getMeanFinalPrice();
         return ((meanFinalPrice - initialPrice) / initialPrice) * 100;
     }
 
-    private void calculateDailyPctChange() {
-        Double previousPrice = null;
-        for (Map.Entry<LocalDate, Double> entry : this.stockData.entrySet()) {
-            LocalDate date = entry.getKey();
-            Double currentPrice = entry.getValue();
-            if (previousPrice != null) {
-                double pctChange = ((currentPrice - previousPrice) / previousPrice);
-                this.dailyPctChange.put(date, pctChange);
-            }
-            previousPrice = currentPrice;
-        }
-    }
-
-    private void calculateLogReturns() {
-        if (this.dailyPctChange.isEmpty()) {
-            calculateDailyPctChange();
-        }
-        this.logReturns = new Double[this.dailyPctChange.size()];
-        int k = 0;
-        for (Map.Entry<LocalDate, Double> entry : this.dailyPctChange.entrySet()) {
-            Double pctChange = entry.getValue();
-            this.logReturns[k] = Math.log(1 + pctChange);
-            k++;
-        }
-    }
-
-    private TreeMap<LocalDate, Double> getStockData(String ticker) {
-        String filePath = "src/main/java/com/concurrentprogramming/montecarlo/montecarlo/model/data/"
-                + ticker + ".csv";
-        TreeMap<LocalDate, Double> data = new TreeMap<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            br.readLine();
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] values = line.split(",");
-                LocalDate date = formatDate(values[0]);
-                Double price = Double.parseDouble(values[1]);
-                data.put(date, price);
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading stock data for ticker: " + ticker);
-            e.printStackTrace();
-        }
-        return data;
-    }
-
-    private LocalDate formatDate(String date) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssXXX");
-        try {
-            return LocalDate.parse(date, formatter);
-        } catch (Exception e) {
-            System.err.println("Error parsing date: " + date);
-            throw e;
-        }
-    }
-
     public static void main(String[] args) {
         Stock apple = new Stock("MSFT");
 
@@ -147,7 +108,7 @@ public class Stock {
 
         apple.performMultipleSimulations(daysToPredict, numSimulations);
 
-        double initialPrice = apple.stockData.lastEntry().getValue();
+        double initialPrice = apple.getLastPrice();
         double meanFinalPrice = apple.getMeanFinalPrice();
         double percentageChange = apple.getPercentageChangeFromInitialToMean();
 
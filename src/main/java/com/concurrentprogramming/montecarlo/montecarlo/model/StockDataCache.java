@@ -0,0 +1,324 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Process-wide, size-bounded LRU cache of parsed price series keyed by ticker.
+// An entry is reloaded when the modification time of its data file changes; the file is checked at most once per
+// revalidation interval so warm lookups touch neither the disk nor the parser. Prices appended through append()
+// replace the entry directly instead of forcing a reload.
+public class StockDataCache {
+    private static final String DATA_DIRECTORY = System.getProperty("montecarlo.data-directory",
+            "src/main/java/com/concurrentprogramming/montecarlo/montecarlo/model/data/");
+    private static final StockDataCache INSTANCE = new StockDataCache(
+            Integer.getInteger("montecarlo.stock-cache.max-entries", 256),
+            Long.getLong("montecarlo.stock-cache.revalidate-millis", 1_000L));
+
+    private final File directory;
+    private final int maxEntries;
+    private final long revalidateNanos;
+    private final LinkedHashMap<String, Entry> entries;
+    private final Object appendLock = new Object();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong totalLoadNanos = new AtomicLong();
+
+    private static final class Entry {
+        private final PriceSeries series;
+        private volatile long checkedAtNanos;
+
+        private Entry(PriceSeries series, long checkedAtNanos) {
+            this.series = series;
+            this.checkedAtNanos = checkedAtNanos;
+        }
+    }
+
+    public StockDataCache(int maxEntries, long revalidateMillis) {
+        this(new File(DATA_DIRECTORY), maxEntries, revalidateMillis);
+    }
+
+    // A cache over another data directory, e.g. a test's own copy of the CSVs
+    public StockDataCache(File directory, int maxEntries, long revalidateMillis) {
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+        this.revalidateNanos = TimeUnit.MILLISECONDS.toNanos(revalidateMillis);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > StockDataCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static StockDataCache getInstance() {
+        return INSTANCE;
+    }
+
+    public static String getDataDirectory() {
+        return DATA_DIRECTORY;
+    }
+
+    public PriceSeries get(String ticker) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(ticker);
+        }
+        long now = System.nanoTime();
+        if (entry != null) {
+            if (now - entry.checkedAtNanos < revalidateNanos) {
+                hits.incrementAndGet();
+                return entry.series;
+            }
+            if (sourceFile(ticker).lastModified() == entry.series.getDataVersion()) {
+                entry.checkedAtNanos = now;
+                hits.incrementAndGet();
+                return entry.series;
+            }
+        }
+        misses.incrementAndGet();
+
+        PriceSeries series = load(ticker);
+        if (!series.isEmpty()) {
+            synchronized (entries) {
+                entries.put(ticker, new Entry(series, now));
+            }
+        }
+        return series;
+    }
+
+    // Loads several tickers at once, one virtual thread per ticker, so cold reads overlap instead of queueing behind
+    // each other; returns when all are cached. Failures surface on the next get().
+    public void preload(Collection<String> tickers) {
+        if (tickers.size() == 1) {
+            get(tickers.iterator().next());
+            return;
+        }
+        try (ExecutorService loaders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String ticker : tickers) {
+                loaders.submit(() -> get(ticker));
+            }
+        }
+    }
+
+    // Appends one daily adjusted close to the ticker's CSV and caches the next version of its series, derived from
+    // the cached one in O(1) together with any statistics already built for it. The date must be after the last
+    // one. The CSV's modification time is set to the new data version, so revalidation keeps the derived series.
+    public PriceSeries append(String ticker, LocalDate date, double adjClose) {
+        if (!(adjClose > 0.0) || Double.isInfinite(adjClose)) {
+            throw new IllegalArgumentException("Adjusted close must be a positive number");
+        }
+        synchronized (appendLock) {
+            PriceSeries current = get(ticker);
+            if (current.isEmpty()) {
+                throw new IllegalArgumentException("No historical stock data available for ticker: " + ticker);
+            }
+            int epochDay = (int) date.toEpochDay();
+            if (epochDay <= current.getEpochDay(current.size() - 1)) {
+                throw new IllegalArgumentException("Appended date must be after "
+                        + LocalDate.ofEpochDay(current.getEpochDay(current.size() - 1)) + " for ticker: " + ticker);
+            }
+            long dataVersion = Math.max(current.getDataVersion() + 1, System.currentTimeMillis());
+            PriceSeries next = current.append(dataVersion, epochDay, adjClose);
+
+            File csv = csvFile(ticker);
+            try {
+                appendCsvLine(csv, date + " 00:00:00+00:00," + adjClose + "," + next.getDailyChange(next.size() - 1) + ",");
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error appending stock data for ticker: " + ticker, e);
+            }
+            csv.setLastModified(dataVersion);
+            synchronized (entries) {
+                entries.put(ticker, new Entry(next, System.nanoTime()));
+            }
+            return next;
+        }
+    }
+
+    private static void appendCsvLine(File csv, String line) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(csv, "rw")) {
+            long length = file.length();
+            boolean newline = length == 0;
+            if (length > 0) {
+                file.seek(length - 1);
+                newline = file.read() == '\n';
+            }
+            file.seek(length);
+            file.write(((newline ? "" : "\n") + line + "\n").getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    public void invalidate(String ticker) {
+        synchronized (entries) {
+            entries.remove(ticker);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getLoads() {
+        return loads.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public double getAverageLoadMillis() {
+        long loadCount = loads.get();
+        return loadCount == 0 ? 0.0 : totalLoadNanos.get() / 1_000_000.0 / loadCount;
+    }
+
+    private PriceSeries load(String ticker) {
+        long start = System.nanoTime();
+        File file = sourceFile(ticker);
+        PriceSeries series = file.getName().endsWith(PriceStore.EXTENSION) ? loadStore(ticker, file) : loadCsv(ticker, file);
+        loads.incrementAndGet();
+        totalLoadNanos.addAndGet(System.nanoTime() - start);
+        return series;
+    }
+
+    private PriceSeries loadStore(String ticker, File file) {
+        try {
+            return PriceStore.read(ticker, file);
+        } catch (IOException e) {
+            System.err.println("Error reading price store for ticker: " + ticker + ", falling back to CSV");
+            e.printStackTrace();
+            return loadCsv(ticker, csvFile(ticker));
+        }
+    }
+
+    private PriceSeries loadCsv(String ticker, File file) {
+        long dataVersion = file.lastModified();
+        int[] epochDays = new int[1024];
+        double[] prices = new double[1024];
+        double[] dailyChanges = new double[1024];
+        int size = 0;
+        boolean sorted = true;
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            br.readLine();
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (size == prices.length) {
+                    epochDays = Arrays.copyOf(epochDays, size * 2);
+                    prices = Arrays.copyOf(prices, size * 2);
+                    dailyChanges = Arrays.copyOf(dailyChanges, size * 2);
+                }
+                int priceStart = line.indexOf(',') + 1;
+                int priceEnd = line.indexOf(',', priceStart);
+                epochDays[size] = parseEpochDay(line);
+                prices[size] = Double.parseDouble(line.substring(priceStart, priceEnd < 0 ? line.length() : priceEnd));
+                dailyChanges[size] = priceEnd < 0 ? Double.NaN : parseOptional(line, priceEnd + 1);
+                if (size > 0 && epochDays[size] <= epochDays[size - 1]) {
+                    sorted = false;
+                }
+                size++;
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading stock data for ticker: " + ticker);
+            e.printStackTrace();
+            size = 0;
+        }
+        return sorted
+                ? new PriceSeries(ticker, dataVersion, Arrays.copyOf(epochDays, size), Arrays.copyOf(prices, size),
+                        Arrays.copyOf(dailyChanges, size))
+                : sortedSeries(ticker, dataVersion, epochDays, prices, size);
+    }
+
+    // The field starting at start, NaN when it is empty
+    private static double parseOptional(String line, int start) {
+        int end = line.indexOf(',', start);
+        if (end < 0) {
+            end = line.length();
+        }
+        return start >= end ? Double.NaN : Double.parseDouble(line.substring(start, end));
+    }
+
+    // Dates are "yyyy-MM-dd HH:mm:ssXXX"; only the calendar date matters
+    static int parseEpochDay(String line) {
+        try {
+            int year = Integer.parseInt(line, 0, 4, 10);
+            int month = Integer.parseInt(line, 5, 7, 10);
+            int day = Integer.parseInt(line, 8, 10, 10);
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        } catch (RuntimeException e) {
+            System.err.println("Error parsing date: " + line);
+            throw e;
+        }
+    }
+
+    // Orders rows by date, keeping the last price seen for a duplicated date. The daily change column is dropped
+    // because it describes the file order, not the sorted one.
+    private static PriceSeries sortedSeries(String ticker, long dataVersion, int[] epochDays, double[] prices, int size) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> epochDays[a] != epochDays[b] ? Integer.compare(epochDays[a], epochDays[b]) : Integer.compare(a, b));
+        int[] sortedDays = new int[size];
+        double[] sortedPrices = new double[size];
+        int count = 0;
+        for (int index : order) {
+            if (count > 0 && sortedDays[count - 1] == epochDays[index]) {
+                count--;
+            }
+            sortedDays[count] = epochDays[index];
+            sortedPrices[count] = prices[index];
+            count++;
+        }
+        return new PriceSeries(ticker, dataVersion, Arrays.copyOf(sortedDays, count), Arrays.copyOf(sortedPrices, count));
+    }
+
+    // The imported binary store when there is one that is not older than the CSV, otherwise the CSV
+    private File sourceFile(String ticker) {
+        File csv = csvFile(ticker);
+        File store = new File(directory, ticker + PriceStore.EXTENSION);
+        return store.exists() && store.lastModified() >= csv.lastModified() ? store : csv;
+    }
+
+    private File csvFile(String ticker) {
+        return new File(directory, ticker + ".csv");
+    }
+}
@@ -0,0 +1,54 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+public class StockDataCacheStats {
+    private final int size;
+    private final int maxEntries;
+    private final long hits;
+    private final long misses;
+    private final long loads;
+    private final long evictions;
+    private final double averageLoadMillis;
+
+    public StockDataCacheStats(StockDataCache cache) {
+        this.size = cache.size();
+        this.maxEntries = cache.getMaxEntries();
+        this.hits = cache.getHits();
+        this.misses = cache.getMisses();
+        this.loads = cache.getLoads();
+        this.evictions = cache.getEvictions();
+        this.averageLoadMillis = cache.getAverageLoadMillis();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    public long getLoads() {
+        return loads;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public double getAverageLoadMillis() {
+        return averageLoadMillis;
+    }
+}
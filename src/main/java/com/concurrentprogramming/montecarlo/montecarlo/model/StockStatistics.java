@@ -0,0 +1,264 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Immutable log-return statistics for one ticker. Built once per version of the ticker's price data and shared
+// by every path and every request, so a simulation never rescans the history.
+//
+// An instance covers either the whole history or a lookback window of its most recent returns (withLookback).
+// Versions made by append() share the return arrays and are advanced in O(1): a Welford update adds the new return
+// and, for windows, removes the one that drops out, so neither the mean nor the variance is recomputed.
+public final class StockStatistics {
+    // Lookbacks come from requests, so only this many distinct windows are kept and advanced by append()
+    private static final int MAX_CARRIED_WINDOWS = 16;
+
+    private final String ticker;
+    private final long dataVersion;
+    private final double lastPrice;
+    // Shared between versions; this instance covers rows [from, to)
+    private final int[] returnEpochDays;
+    private final double[] logReturns;
+    private final SeriesLineage lineage;
+    private final int from;
+    private final int to;
+    // 0 for the whole history
+    private final int lookbackDays;
+    private final double mean;
+    private final double sumSquaredDiffs;
+    // Windows derived from this whole-history instance, carried forward by append(); null on a window
+    private final Map<Integer, StockStatistics> windows;
+
+    private StockStatistics(String ticker, long dataVersion, double lastPrice, int[] returnEpochDays, double[] logReturns,
+                            SeriesLineage lineage, int from, int to, int lookbackDays, double mean, double sumSquaredDiffs) {
+        this.ticker = ticker;
+        this.dataVersion = dataVersion;
+        this.lastPrice = lastPrice;
+        this.returnEpochDays = returnEpochDays;
+        this.logReturns = logReturns;
+        this.lineage = lineage;
+        this.from = from;
+        this.to = to;
+        this.lookbackDays = lookbackDays;
+        this.mean = mean;
+        this.sumSquaredDiffs = sumSquaredDiffs;
+        this.windows = lookbackDays == 0 ? new ConcurrentHashMap<>() : null;
+    }
+
+    // Builds the statistics from a date-ordered price series; epochDays[i] is the date of prices[i]
+    public static StockStatistics fromPrices(String ticker, long dataVersion, int[] epochDays, double[] prices) {
+        return fromPrices(ticker, dataVersion, epochDays, prices, null, prices.length);
+    }
+
+    // As above for the first size rows; dailyChanges[i] is the relative change from prices[i - 1] (the CSV's
+    // AdjClose_dailyChange column) and is used for the log return where it is known
+    public static StockStatistics fromPrices(String ticker, long dataVersion, int[] epochDays, double[] prices,
+                                             double[] dailyChanges, int size) {
+        if (size == 0) {
+            throw new IllegalStateException("No historical stock data available for ticker: " + ticker);
+        }
+        int returns = size - 1;
+        int[] returnEpochDays = new int[returns];
+        double[] logReturns = new double[returns];
+        for (int i = 1; i < size; i++) {
+            returnEpochDays[i - 1] = epochDays[i];
+            logReturns[i - 1] = logReturn(prices[i - 1], prices[i], dailyChanges == null ? Double.NaN : dailyChanges[i]);
+        }
+        double mean = calculateMean(logReturns, 0, returns);
+        return new StockStatistics(ticker, dataVersion, prices[size - 1], returnEpochDays, logReturns,
+                new SeriesLineage(returns), 0, returns, 0, mean, sumSquaredDiffs(logReturns, 0, returns, mean));
+    }
+
+    private static double logReturn(double previousPrice, double price, double dailyChange) {
+        return Double.isFinite(dailyChange) ? Math.log1p(dailyChange) : Math.log(price / previousPrice);
+    }
+
+    private static double calculateMean(double[] values, int from, int to) {
+        if (to == from) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum / (to - from);
+    }
+
+    private static double sumSquaredDiffs(double[] values, int from, int to, double mean) {
+        double sumSquaredDiffs = 0.0;
+        for (int i = from; i < to; i++) {
+            double diff = values[i] - mean;
+            sumSquaredDiffs += diff * diff;
+        }
+        return sumSquaredDiffs;
+    }
+
+    // Statistics over the most recent lookbackDays returns, clamped to the returns there are. Built in
+    // O(lookbackDays) on first use; the first MAX_CARRIED_WINDOWS distinct windows are kept and then kept up to date
+    // by append(), any others are rebuilt on every call. 0 returns this whole-history instance.
+    public StockStatistics withLookback(int lookbackDays) {
+        if (lookbackDays < 0) {
+            throw new IllegalArgumentException("lookbackDays must not be negative");
+        }
+        if (lookbackDays == this.lookbackDays) {
+            return this;
+        }
+        if (windows == null || lookbackDays == 0) {
+            throw new IllegalStateException("Lookback windows are derived from the whole-history statistics");
+        }
+        int days = Math.min(lookbackDays, to - from);
+        if (days == 0) {
+            return this;
+        }
+        StockStatistics window = windows.get(days);
+        if (window != null) {
+            return window;
+        }
+        int windowFrom = to - days;
+        double windowMean = calculateMean(logReturns, windowFrom, to);
+        window = new StockStatistics(ticker, dataVersion, lastPrice, returnEpochDays, logReturns, lineage,
+                windowFrom, to, days, windowMean, sumSquaredDiffs(logReturns, windowFrom, to, windowMean));
+        if (windows.size() < MAX_CARRIED_WINDOWS) {
+            StockStatistics existing = windows.putIfAbsent(days, window);
+            return existing != null ? existing : window;
+        }
+        return window;
+    }
+
+    // Next version after appending one price dated after the last one; dailyChange is price / lastPrice - 1.
+    // Writes the return in place when this is the newest version of the arrays, and advances every lookback window
+    // derived so far, so the cost is O(1) per window.
+    StockStatistics append(long newDataVersion, int epochDay, double price, double dailyChange) {
+        if (windows == null) {
+            throw new IllegalStateException("Only whole-history statistics can be appended to");
+        }
+        int[] days = returnEpochDays;
+        double[] returns = logReturns;
+        SeriesLineage newLineage = lineage;
+        if (!lineage.claim(to)) {
+            days = Arrays.copyOf(days, to);
+            returns = Arrays.copyOf(returns, to);
+            newLineage = new SeriesLineage(to + 1);
+        }
+        if (to == returns.length) {
+            int capacity = Math.max(16, to * 2);
+            days = Arrays.copyOf(days, capacity);
+            returns = Arrays.copyOf(returns, capacity);
+        }
+        days[to] = epochDay;
+        returns[to] = logReturn(lastPrice, price, dailyChange);
+
+        StockStatistics next = advance(newDataVersion, price, days, returns, newLineage);
+        for (StockStatistics window : windows.values()) {
+            next.windows.put(window.lookbackDays, window.advance(newDataVersion, price, days, returns, newLineage));
+        }
+        return next;
+    }
+
+    // Welford update for the return at row to, then removal of the oldest return once a window is full
+    private StockStatistics advance(long newDataVersion, double price, int[] days, double[] returns, SeriesLineage newLineage) {
+        double added = returns[to];
+        int count = to + 1 - from;
+        double newMean = mean + (added - mean) / count;
+        double newSumSquaredDiffs = sumSquaredDiffs + (added - mean) * (added - newMean);
+        int newFrom = from;
+        if (lookbackDays > 0 && count > lookbackDays) {
+            double removed = returns[from];
+            double fullMean = newMean;
+            count--;
+            newFrom++;
+            newMean = fullMean - (removed - fullMean) / count;
+            newSumSquaredDiffs -= (removed - fullMean) * (removed - newMean);
+        }
+        return new StockStatistics(ticker, newDataVersion, price, days, returns, newLineage, newFrom, to + 1,
+                lookbackDays, newMean, Math.max(newSumSquaredDiffs, 0.0));
+    }
+
+    // Population covariance of the log returns of both tickers over the dates they have in common
+    public double covariance(StockStatistics other) {
+        double sumThis = 0.0;
+        double sumOther = 0.0;
+        double sumProducts = 0.0;
+        int count = 0;
+        int i = from;
+        int j = other.from;
+        while (i < to && j < other.to) {
+            if (returnEpochDays[i] < other.returnEpochDays[j]) {
+                i++;
+            } else if (returnEpochDays[i] > other.returnEpochDays[j]) {
+                j++;
+            } else {
+                sumThis += logReturns[i];
+                sumOther += other.logReturns[j];
+                sumProducts += logReturns[i] * other.logReturns[j];
+                count++;
+                i++;
+                j++;
+            }
+        }
+        if (count == 0) {
+            return 0.0;
+        }
+        return sumProducts / count - (sumThis / count) * (sumOther / count);
+    }
+
+    public String getTicker() {
+        return ticker;
+    }
+
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    public double getLastPrice() {
+        return lastPrice;
+    }
+
+    public int getLookbackDays() {
+        return lookbackDays;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStdDev() {
+        int count = to - from;
+        return count == 0 ? 0.0 : Math.sqrt(sumSquaredDiffs / count);
+    }
+
+    public int getReturnCount() {
+        return to - from;
+    }
+
+    public int getReturnEpochDay(int index) {
+        return returnEpochDays[from + index];
+    }
+
+    public double getLogReturn(int index) {
+        return logReturns[from + index];
+    }
+
+    // Row-level access for CorrelatedModel, which extends a model across appended versions by row position
+
+    boolean sharesRowsWith(StockStatistics other) {
+        return lineage == other.lineage;
+    }
+
+    int getWindowStart() {
+        return from;
+    }
+
+    int getWindowEnd() {
+        return to;
+    }
+
+    int returnEpochDayAt(int row) {
+        return returnEpochDays[row];
+    }
+
+    double logReturnAt(int row) {
+        return logReturns[row];
+    }
+}
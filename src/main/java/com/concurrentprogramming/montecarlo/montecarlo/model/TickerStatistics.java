@@ -0,0 +1,58 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import java.time.LocalDate;
+
+// Log-return statistics of one ticker as the simulations currently see them, over the whole history or a lookback window
+public class TickerStatistics {
+    private final String ticker;
+    private final long dataVersion;
+    private final LocalDate lastDate;
+    private final double lastPrice;
+    private final int lookbackDays;
+    private final int returnCount;
+    private final double mean;
+    private final double stdDev;
+
+    public TickerStatistics(PriceSeries series, StockStatistics statistics) {
+        this.ticker = series.getTicker();
+        this.dataVersion = series.getDataVersion();
+        this.lastDate = LocalDate.ofEpochDay(series.getEpochDay(series.size() - 1));
+        this.lastPrice = statistics.getLastPrice();
+        this.lookbackDays = statistics.getLookbackDays();
+        this.returnCount = statistics.getReturnCount();
+        this.mean = statistics.getMean();
+        this.stdDev = statistics.getStdDev();
+    }
+
+    public String getTicker() {
+        return ticker;
+    }
+
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+
+    public double getLastPrice() {
+        return lastPrice;
+    }
+
+    public int getLookbackDays() {
+        return lookbackDays;
+    }
+
+    public int getReturnCount() {
+        return returnCount;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStdDev() {
+        return stdDev;
+    }
+}
@@ -0,0 +1,12 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+public enum VarianceReduction {
+    // Plain Monte Carlo
+    NONE,
+    // Paths come in pairs driven by z and -z; the pair average is one estimator sample
+    ANTITHETIC,
+    // Final value adjusted by a geometric-average portfolio whose expectation is known in closed form under GBM
+    CONTROL_VARIATE,
+    // Randomly shifted Sobol points mapped to Brownian-bridge paths; error estimated across independent shifts
+    SOBOL
+}
@@ -1,47 +1,394 @@
 package com.concurrentprogramming.montecarlo.montecarlo.service;
 
+import com.concurrentprogramming.montecarlo.montecarlo.model.BatchPortfolio;
+import com.concurrentprogramming.montecarlo.montecarlo.model.ConvergenceCriteria;
+import com.concurrentprogramming.montecarlo.montecarlo.model.ExecutionMode;
+import com.concurrentprogramming.montecarlo.montecarlo.model.PathBatchConsumer;
 import com.concurrentprogramming.montecarlo.montecarlo.model.Portfolio;
+import com.concurrentprogramming.montecarlo.montecarlo.model.PortfolioBatchRequest;
+import com.concurrentprogramming.montecarlo.montecarlo.model.PortfolioBatchResult;
+import com.concurrentprogramming.montecarlo.montecarlo.model.PortfolioRequest;
+import com.concurrentprogramming.montecarlo.montecarlo.model.PriceAppendRequest;
+import com.concurrentprogramming.montecarlo.montecarlo.model.PriceSeries;
+import com.concurrentprogramming.montecarlo.montecarlo.model.RunTiming;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationProgress;
 import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationResult;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationStatistics;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationStreams;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationSummary;
+import com.concurrentprogramming.montecarlo.montecarlo.model.StockDataCache;
+import com.concurrentprogramming.montecarlo.montecarlo.model.StockDataCacheStats;
+import com.concurrentprogramming.montecarlo.montecarlo.model.TickerStatistics;
+import com.concurrentprogramming.montecarlo.montecarlo.utils.PortfolioPlotter;
+import com.concurrentprogramming.montecarlo.montecarlo.utils.PortfolioPlotter.ChartFormat;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class PortfolioService {
+    // Finest frontier step in percent, which keeps a sweep's unit count small and exact
+    private static final double MIN_FRONTIER_STEP = 0.01;
 
-    public SimulationResult performSimulations(double initialCapital, Map<String, Double> stockWeights, int daysToPredict, int numSimulations) {
+    private final SimulationRunRepository runRepository;
+    private final SimulationMetrics metrics;
+    private final int maxBatchPortfolios;
 
-        Portfolio portfolio = new Portfolio(initialCapital, stockWeights);
+    public PortfolioService(SimulationRunRepository runRepository, SimulationMetrics metrics,
+                            @Value("${montecarlo.batch.max-portfolios:500}") int maxBatchPortfolios) {
+        this.runRepository = runRepository;
+        this.metrics = metrics;
+        this.maxBatchPortfolios = maxBatchPortfolios;
+    }
+
+    public SimulationResult performSimulations(PortfolioRequest request) {
+        SimulationMetrics.Run metricsRun = metrics.start("simulate");
+        Portfolio portfolio = metricsRun.phase("setup", () -> createPortfolio(request));
+        portfolio.setProfile(metricsRun.getProfile());
+        long runSeed = runSeed(request);
+
+        SimulationResult result;
+        if (request.getExecutionMode() == ExecutionMode.COMPARE) {
+            // Same seed for both runs, so they produce identical paths and only the timings differ
+            RunTiming sequential = metricsRun.simulate(() -> runSimulations(portfolio, request, ExecutionMode.SEQUENTIAL, runSeed));
+            portfolio.clearSimulations();
+            RunTiming parallel = metricsRun.simulate(() -> runSimulations(portfolio, request, ExecutionMode.PARALLEL, runSeed));
+            result = metricsRun.phase("aggregate", () -> new SimulationResult(parallel, portfolio.getStandardError(),
+                    portfolio.getAllSimulations(), List.of(sequential, parallel)));
+        } else {
+            RunTiming run = metricsRun.simulate(() -> runSimulations(portfolio, request, request.getExecutionMode(), runSeed));
+            result = metricsRun.phase("aggregate", () -> new SimulationResult(run, portfolio.getStandardError(),
+                    portfolio.getAllSimulations()));
+        }
+        runRepository.record("simulate", request, result);
+        metricsRun.finish();
+        return result;
+    }
+
+    public SimulationSummary performStreamingSimulation(PortfolioRequest request) {
+        return performStreamingSimulation(request, null);
+    }
+
+    // progress, when given, receives the run's completed paths and can cancel it between chunks
+    public SimulationSummary performStreamingSimulation(PortfolioRequest request, SimulationProgress progress) {
+        SimulationMetrics.Run metricsRun = metrics.start("summary");
+        Portfolio portfolio = metricsRun.phase("setup", () -> createPortfolio(request));
+        portfolio.setProgress(progress);
+        portfolio.setProfile(metricsRun.getProfile());
+
+        long start = System.currentTimeMillis();
+        SimulationStatistics statistics;
+        SimulationSummary summary;
+        if (request.getTargetRelativeError() != null) {
+            ConvergenceCriteria criteria = convergenceCriteria(request);
+            statistics = metricsRun.simulate(() -> portfolio.performAdaptiveSimulations(
+                    request.getDaysToPredict(), criteria, request.getSamplePaths(), runSeed(request)));
+            long executionTime = System.currentTimeMillis() - start;
+            summary = metricsRun.phase("aggregate", () -> new SimulationSummary(statistics, executionTime,
+                    portfolio.getConvergenceReport(), request.getQuantiles(), request.getRiskLevels()));
+        } else {
+            statistics = metricsRun.simulate(() -> request.getExecutionMode() == ExecutionMode.SEQUENTIAL
+                    ? portfolio.performStreamingSimulations(
+                            request.getDaysToPredict(), request.getNumSimulations(), request.getSamplePaths(), runSeed(request))
+                    : portfolio.performStreamingSimulationsInParallel(
+                            request.getDaysToPredict(), request.getNumSimulations(), request.getSamplePaths(), runSeed(request)));
+            long executionTime = System.currentTimeMillis() - start;
+            summary = metricsRun.phase("aggregate", () -> new SimulationSummary(statistics, executionTime, null,
+                    request.getQuantiles(), request.getRiskLevels()));
+        }
+        runRepository.record("summary", request, summary, statistics);
+        metricsRun.finish();
+        return summary;
+    }
+
+    // Runs the request in batches, handing each batch of paths to consumer as soon as it is simulated
+    // Simulate time includes waiting for the consumer, so a slow client shows up as low throughput
+    public SimulationSummary streamSimulation(PortfolioRequest request, int batchSize, PathBatchConsumer consumer) {
+        SimulationMetrics.Run metricsRun = metrics.start("stream");
+        Portfolio portfolio = metricsRun.phase("setup", () -> createPortfolio(request));
+        portfolio.setProfile(metricsRun.getProfile());
+
+        long start = System.currentTimeMillis();
+        SimulationStatistics statistics = metricsRun.simulate(() -> portfolio.performBatchedSimulations(
+                request.getDaysToPredict(), request.getNumSimulations(), batchSize, runSeed(request), consumer));
+        long executionTime = System.currentTimeMillis() - start;
+
+        SimulationSummary summary = metricsRun.phase("aggregate", () -> new SimulationSummary(statistics, executionTime,
+                null, request.getQuantiles(), request.getRiskLevels()));
+        runRepository.record("stream", request, summary, statistics);
+        metricsRun.finish();
+        return summary;
+    }
+
+    // Throws IllegalArgumentException for a negative horizon or sample count, an empty run, out-of-range quantiles or
+    // risk levels and invalid adaptive criteria, so requests fail with 400 before they are admitted
+    public void checkRequest(PortfolioRequest request) {
+        SimulationSummary.checkOptions(request.getQuantiles(), request.getRiskLevels());
+        checkSamplePaths(request.getSamplePaths());
+        checkDaysToPredict(request.getDaysToPredict());
+        if (request.getTargetRelativeError() != null) {
+            convergenceCriteria(request);
+        }
+        // An adaptive run with its own path budget does not use numSimulations
+        if (request.getTargetRelativeError() == null || request.getMaxSimulations() == null) {
+            checkNumSimulations(request.getNumSimulations());
+        }
+    }
+
+    public void checkRequest(PortfolioBatchRequest request) {
+        SimulationSummary.checkOptions(request.getQuantiles(), request.getRiskLevels());
+        checkSamplePaths(request.getSamplePaths());
+        checkDaysToPredict(request.getDaysToPredict());
+        checkNumSimulations(request.getNumSimulations());
+    }
+
+    private static void checkSamplePaths(int samplePaths) {
+        if (samplePaths < 0) {
+            throw new IllegalArgumentException("samplePaths must not be negative");
+        }
+    }
+
+    private static void checkDaysToPredict(int daysToPredict) {
+        if (daysToPredict < 0) {
+            throw new IllegalArgumentException("daysToPredict must not be negative");
+        }
+    }
+
+    private static void checkNumSimulations(int numSimulations) {
+        if (numSimulations < 1) {
+            throw new IllegalArgumentException("numSimulations must be at least 1");
+        }
+    }
+
+    // Prices the request's weightings and frontier sweep against one set of scenarios over all of their tickers.
+    // Throws IllegalArgumentException for an empty or oversized batch, repeated frontier tickers or a frontier step
+    // below 0.01 or not dividing 100.
+    public PortfolioBatchResult performBatchSimulation(PortfolioBatchRequest request) {
+        List<Map<String, Double>> weightings = batchWeightings(request);
+        SimulationMetrics.Run metricsRun = metrics.start("batch");
+        TreeSet<String> tickers = new TreeSet<>();
+        for (Map<String, Double> weighting : weightings) {
+            tickers.addAll(weighting.keySet());
+        }
+        // Only the tickers matter; each weighting supplies its own weights
+        Map<String, Double> universe = new LinkedHashMap<>();
+        for (String ticker : tickers) {
+            universe.put(ticker, 1.0 / tickers.size());
+        }
+        int lookbackDays = request.getLookbackDays() != null ? request.getLookbackDays() : 0;
+        Portfolio portfolio = metricsRun.phase("setup", () -> new Portfolio(request.getInitialCapital(), universe, lookbackDays));
+        if (request.getGaussianSampler() != null) {
+            portfolio.setGaussianSampler(request.getGaussianSampler());
+        }
+        portfolio.setProfile(metricsRun.getProfile());
+        List<String> order = portfolio.getTickers();
+        double[][] weightSets = new double[weightings.size()][order.size()];
+        for (int p = 0; p < weightings.size(); p++) {
+            for (int s = 0; s < order.size(); s++) {
+                weightSets[p][s] = weightings.get(p).getOrDefault(order.get(s), 0.0) / 100;
+            }
+        }
 
-        // Sequential simulation
-        long startSequential = System.currentTimeMillis();
-        portfolio.performMultipleSimulations(daysToPredict, numSimulations);
-        long sequentialExecutionTime = System.currentTimeMillis() - startSequential;
+        long start = System.currentTimeMillis();
+        SimulationStatistics[] statistics = metricsRun.simulate(() -> portfolio.performScenarioSimulations(
+                request.getDaysToPredict(), request.getNumSimulations(), request.getSamplePaths(),
+                runSeed(request.getSeed()), weightSets));
+        long executionTime = System.currentTimeMillis() - start;
 
-        double sequentialMean = portfolio.getMeanFinalValue();
-        double sequentialStdDev = portfolio.getStandardDeviationFinalValue();
+        PortfolioBatchResult result = metricsRun.phase("aggregate", () -> {
+            SimulationSummary[] summaries = new SimulationSummary[statistics.length];
+            for (int p = 0; p < statistics.length; p++) {
+                summaries[p] = new SimulationSummary(statistics[p], executionTime, null, request.getQuantiles(),
+                        request.getRiskLevels());
+            }
+            boolean[] efficient = efficientFrontier(summaries);
+            List<BatchPortfolio> portfolios = new ArrayList<>(summaries.length);
+            for (int p = 0; p < summaries.length; p++) {
+                portfolios.add(new BatchPortfolio(weightings.get(p), efficient[p], summaries[p]));
+            }
+            return new PortfolioBatchResult(order, request.getNumSimulations(), executionTime, portfolios);
+        });
+        metricsRun.finish();
+        return result;
+    }
+
+    private List<Map<String, Double>> batchWeightings(PortfolioBatchRequest request) {
+        List<Map<String, Double>> weightings = new ArrayList<>();
+        if (request.getPortfolios() != null) {
+            weightings.addAll(request.getPortfolios());
+        }
+        if (request.getFrontierStep() != null) {
+            List<String> frontierTickers = request.getFrontierTickers();
+            if (frontierTickers == null || frontierTickers.isEmpty()) {
+                throw new IllegalArgumentException("frontierTickers are required for a frontier sweep");
+            }
+            if (new HashSet<>(frontierTickers).size() != frontierTickers.size()) {
+                throw new IllegalArgumentException("frontierTickers must not repeat a ticker");
+            }
+            double step = request.getFrontierStep();
+            long units = Math.round(100 / step);
+            if (!(step >= MIN_FRONTIER_STEP) || Math.abs(units * step - 100) > 1e-9) {
+                throw new IllegalArgumentException("frontierStep must be at least " + MIN_FRONTIER_STEP + " and divide 100");
+            }
+            // Weightings of n tickers in units steps: C(units + n - 1, n - 1)
+            double sweepSize = 1;
+            for (int k = 1; k < frontierTickers.size(); k++) {
+                sweepSize = sweepSize * (units + k) / k;
+            }
+            if (weightings.size() + sweepSize > maxBatchPortfolios) {
+                throw new IllegalArgumentException("A batch prices at most " + maxBatchPortfolios + " portfolios");
+            }
+            addFrontierWeightings(frontierTickers, 0, (int) units, step, new double[frontierTickers.size()], weightings);
+        }
+        if (weightings.isEmpty() || weightings.size() > maxBatchPortfolios) {
+            throw new IllegalArgumentException("A batch prices between 1 and " + maxBatchPortfolios + " portfolios");
+        }
+        for (Map<String, Double> weighting : weightings) {
+            if (weighting == null || weighting.isEmpty()) {
+                throw new IllegalArgumentException("Every portfolio needs at least one ticker");
+            }
+        }
+        return weightings;
+    }
+
+    // Every way to give the tickers from index on the remaining units of step percent
+    private static void addFrontierWeightings(List<String> tickers, int index, int remaining, double step,
+                                              double[] units, List<Map<String, Double>> weightings) {
+        if (index == tickers.size() - 1) {
+            units[index] = remaining;
+            Map<String, Double> weighting = new LinkedHashMap<>();
+            for (int s = 0; s < tickers.size(); s++) {
+                weighting.put(tickers.get(s), units[s] * step);
+            }
+            weightings.add(weighting);
+            return;
+        }
+        for (int u = remaining; u >= 0; u--) {
+            units[index] = u;
+            addFrontierWeightings(tickers, index + 1, remaining - u, step, units, weightings);
+        }
+    }
+
+    // A portfolio is efficient when no other has a higher mean final value at no more standard deviation: walking
+    // them by increasing standard deviation, those that beat every mean seen so far
+    private static boolean[] efficientFrontier(SimulationSummary[] summaries) {
+        Integer[] byRisk = new Integer[summaries.length];
+        for (int p = 0; p < summaries.length; p++) {
+            byRisk[p] = p;
+        }
+        Arrays.sort(byRisk, Comparator.<Integer>comparingDouble(p -> summaries[p].getStdDevFinalValue())
+                .thenComparing(p -> -summaries[p].getMeanFinalValue()));
+        boolean[] efficient = new boolean[summaries.length];
+        double bestMean = Double.NEGATIVE_INFINITY;
+        for (int p : byRisk) {
+            if (summaries[p].getMeanFinalValue() > bestMean) {
+                efficient[p] = true;
+                bestMean = summaries[p].getMeanFinalValue();
+            }
+        }
+        return efficient;
+    }
+
+    // Reads any uncached price data for the request on virtual threads, so the simulation itself does no file I/O
+    public void loadStockData(PortfolioRequest request) {
+        metrics.time("load", "all", () -> {
+            StockDataCache.getInstance().preload(request.getStockWeights().keySet());
+            return null;
+        });
+    }
+
+    // As above for every ticker a batch request's weightings and frontier sweep may use
+    public void loadStockData(PortfolioBatchRequest request) {
+        Set<String> tickers = new TreeSet<>();
+        if (request.getPortfolios() != null) {
+            for (Map<String, Double> weighting : request.getPortfolios()) {
+                if (weighting != null) {
+                    tickers.addAll(weighting.keySet());
+                }
+            }
+        }
+        if (request.getFrontierTickers() != null) {
+            tickers.addAll(request.getFrontierTickers());
+        }
+        metrics.time("load", "all", () -> {
+            StockDataCache.getInstance().preload(tickers);
+            return null;
+        });
+    }
+
+    // Appends a daily price to the ticker's data; the statistics and cached models move forward incrementally
+    public TickerStatistics appendPrice(String ticker, PriceAppendRequest request) {
+        if (request.getDate() == null) {
+            throw new IllegalArgumentException("date is required");
+        }
+        PriceSeries series = StockDataCache.getInstance().append(ticker, request.getDate(), request.getAdjClose());
+        return new TickerStatistics(series, series.getStatistics());
+    }
+
+    // Returns null when there is no data for the ticker
+    public TickerStatistics getTickerStatistics(String ticker, int lookbackDays) {
+        PriceSeries series = StockDataCache.getInstance().get(ticker);
+        if (series.isEmpty()) {
+            return null;
+        }
+        return new TickerStatistics(series, series.getStatistics().withLookback(lookbackDays));
+    }
+
+    // Draws from the summary's aggregates only, so rendering costs the same for any number of simulated paths
+    public byte[] renderFanChart(SimulationSummary summary, ChartFormat format, int width, int height, int maxPaths) {
+        return metrics.time("render", "chart",
+                () -> PortfolioPlotter.render(PortfolioPlotter.fanChart(summary, width, height, maxPaths), format));
+    }
+
+    public StockDataCacheStats getDataCacheStats() {
+        return new StockDataCacheStats(StockDataCache.getInstance());
+    }
+
+    private Portfolio createPortfolio(PortfolioRequest request) {
+        int lookbackDays = request.getLookbackDays() != null ? request.getLookbackDays() : 0;
+        Portfolio portfolio = new Portfolio(request.getInitialCapital(), request.getStockWeights(), lookbackDays);
+        if (request.getGaussianSampler() != null) {
+            portfolio.setGaussianSampler(request.getGaussianSampler());
+        }
+        if (request.getVarianceReduction() != null) {
+            portfolio.setVarianceReduction(request.getVarianceReduction());
+        }
+        return portfolio;
+    }
 
-        // Parallel simulation
-        portfolio.getAllSimulations().clear();
-        portfolio.getFinalValuesDistribution().clear();
+    // Throws IllegalArgumentException for a non-positive target, an empty path budget or a time budget out of range
+    private static ConvergenceCriteria convergenceCriteria(PortfolioRequest request) {
+        return new ConvergenceCriteria(
+                request.getTargetRelativeError(),
+                request.getMaxSimulations() != null ? request.getMaxSimulations() : request.getNumSimulations(),
+                request.getMaxMillis());
+    }
 
-        long startParallel = System.currentTimeMillis();
-        portfolio.performMultipleSimulationsInParallel(daysToPredict, numSimulations);
-        long parallelExecutionTime = System.currentTimeMillis() - startParallel;
+    private RunTiming runSimulations(Portfolio portfolio, PortfolioRequest request, ExecutionMode mode, long runSeed) {
+        long start = System.currentTimeMillis();
+        if (mode == ExecutionMode.SEQUENTIAL) {
+            portfolio.performMultipleSimulations(request.getDaysToPredict(), request.getNumSimulations(), runSeed);
+        } else {
+            portfolio.performMultipleSimulationsInParallel(request.getDaysToPredict(), request.getNumSimulations(), runSeed);
+        }
+        long executionTime = System.currentTimeMillis() - start;
+        return new RunTiming(mode, portfolio.getEstimatedMeanFinalValue(), portfolio.getStandardDeviationFinalValue(), executionTime);
+    }
 
-        double parallelMean = portfolio.getMeanFinalValue();
-        double parallelStdDev = portfolio.getStandardDeviationFinalValue();
+    private long runSeed(PortfolioRequest request) {
+        return runSeed(request.getSeed());
+    }
 
-        // Prepare results
-        return new SimulationResult(
-                sequentialMean,
-                sequentialStdDev,
-                sequentialExecutionTime,
-                parallelMean,
-                parallelStdDev,
-                parallelExecutionTime,
-                portfolio.getAllSimulations()
-        );
+    private long runSeed(Long seed) {
+        return seed != null ? seed : SimulationStreams.randomSeed();
     }
 }
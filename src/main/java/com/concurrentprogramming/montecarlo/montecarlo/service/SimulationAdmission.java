@@ -0,0 +1,159 @@
+package com.concurrentprogramming.montecarlo.montecarlo.service;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationAdmissionStats;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Admission control for CPU-bound simulation requests. Requests are handled on virtual threads, which are cheap to
+// block but must not run long CPU work themselves, so each simulation is handed to a small pool of platform threads:
+// at most maxConcurrent run at once, at most maxQueued wait, and anything beyond that is rejected immediately with
+// 429 instead of oversubscribing the cores. The requesting virtual thread just waits for the result.
+@Component
+public class SimulationAdmission {
+    // How long an admitted simulation holds its slot waiting for reserve()'s resource before giving up
+    private static final long RESOURCE_TIMEOUT_SECONDS = 30;
+
+    private final ThreadPoolExecutor executor;
+    private final int maxConcurrent;
+    private final int maxQueued;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder totalQueueWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAccumulator maxRunNanos = new LongAccumulator(Math::max, 0L);
+
+    public SimulationAdmission(@Value("${montecarlo.admission.max-concurrent:0}") int maxConcurrent,
+                               @Value("${montecarlo.admission.max-queued:16}") int maxQueued) {
+        this.maxConcurrent = maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+        this.maxQueued = maxQueued;
+        AtomicInteger threadCount = new AtomicInteger();
+        // With no queue a simulation is only accepted while an admission thread is idle
+        this.executor = new ThreadPoolExecutor(this.maxConcurrent, this.maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                maxQueued > 0 ? new ArrayBlockingQueue<>(maxQueued) : new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "simulation-admission-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Runs simulation on an admission thread and waits for it; throws SimulationRejectedException when the
+    // concurrency and queue limits are both reached
+    public <T> T execute(Supplier<T> simulation) {
+        return await(submit(simulation));
+    }
+
+    // For simulations that need something only available later, such as a streamed response's output stream:
+    // admits (or rejects) the simulation now, before the response starts, and returns the function that hands over
+    // the resource, runs the simulation with it on the admission thread and waits for it to finish
+    public <R> Consumer<R> reserve(Consumer<R> simulation) {
+        CompletableFuture<R> resource = new CompletableFuture<>();
+        Future<Void> future = submit(() -> {
+            try {
+                simulation.accept(resource.get(RESOURCE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            } catch (InterruptedException | TimeoutException e) {
+                throw new CancellationException("Admitted simulation was never started");
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            return null;
+        });
+        return provided -> {
+            resource.complete(provided);
+            await(future);
+        };
+    }
+
+    private <T> Future<T> submit(Supplier<T> simulation) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                recordQueueWait(startedAt - submittedAt);
+                try {
+                    return simulation.get();
+                } finally {
+                    recordRun(System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new SimulationRejectedException("Too many simulations in progress, retry later");
+        }
+        admitted.increment();
+        return future;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the simulation");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private void recordQueueWait(long nanos) {
+        totalQueueWaitNanos.add(nanos);
+        maxQueueWaitNanos.accumulate(nanos);
+    }
+
+    private void recordRun(long nanos) {
+        completed.increment();
+        totalRunNanos.add(nanos);
+        maxRunNanos.accumulate(nanos);
+    }
+
+    public SimulationAdmissionStats getStats() {
+        long admittedCount = admitted.sum();
+        long completedCount = completed.sum();
+        return new SimulationAdmissionStats(
+                maxConcurrent,
+                maxQueued,
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                admittedCount,
+                rejected.sum(),
+                completedCount,
+                admittedCount == 0 ? 0.0 : totalQueueWaitNanos.sum() / 1_000_000.0 / admittedCount,
+                maxQueueWaitNanos.get() / 1_000_000.0,
+                completedCount == 0 ? 0.0 : totalRunNanos.sum() / 1_000_000.0 / completedCount,
+                maxRunNanos.get() / 1_000_000.0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
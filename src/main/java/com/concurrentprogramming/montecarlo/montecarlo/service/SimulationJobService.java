@@ -0,0 +1,119 @@
+package com.concurrentprogramming.montecarlo.montecarlo.service;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.PortfolioRequest;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationJob;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs simulation requests in the background so web threads return immediately. Jobs wait in a bounded queue and run
+// on a small fixed set of job threads; the simulations themselves still use the shared fork/join pool. Finished jobs
+// are kept for polling until maxRetainedJobs newer ones have been submitted.
+@Service
+public class SimulationJobService {
+    private final PortfolioService portfolioService;
+    private final ThreadPoolExecutor executor;
+    private final int maxRetainedJobs;
+    private final Map<String, SimulationJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> submissionOrder = new ConcurrentLinkedQueue<>();
+
+    public SimulationJobService(PortfolioService portfolioService,
+                                @Value("${montecarlo.jobs.threads:2}") int threads,
+                                @Value("${montecarlo.jobs.queue-capacity:32}") int queueCapacity,
+                                @Value("${montecarlo.jobs.max-retained:256}") int maxRetainedJobs) {
+        this.portfolioService = portfolioService;
+        this.maxRetainedJobs = maxRetainedJobs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "simulation-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Throws IllegalArgumentException for an invalid request, before it takes a place in the queue
+    public SimulationJob submit(PortfolioRequest request) {
+        portfolioService.checkRequest(request);
+        SimulationJob job = new SimulationJob(UUID.randomUUID().toString(), request);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new SimulationRejectedException("Simulation job queue is full, retry later");
+        }
+        submissionOrder.add(job.getId());
+        evictFinishedJobs();
+        return job;
+    }
+
+    public SimulationJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    public SimulationJob cancel(String id) {
+        SimulationJob job = jobs.get(id);
+        if (job != null) {
+            job.cancel();
+        }
+        return job;
+    }
+
+    public int getQueuedJobs() {
+        return executor.getQueue().size();
+    }
+
+    public int getRunningJobs() {
+        return executor.getActiveCount();
+    }
+
+    private void run(SimulationJob job) {
+        if (!job.start()) {
+            return;
+        }
+        try {
+            portfolioService.loadStockData(job.getRequest());
+            job.succeed(portfolioService.performStreamingSimulation(job.getRequest(), job.getProgress()));
+        } catch (CancellationException e) {
+            job.cancel();
+        } catch (RuntimeException e) {
+            job.fail(e.getMessage());
+        }
+    }
+
+    // Drops the oldest finished jobs beyond the retention limit; jobs still queued or running are never dropped
+    private void evictFinishedJobs() {
+        int excess = submissionOrder.size() - maxRetainedJobs;
+        for (String id : submissionOrder) {
+            if (excess <= 0) {
+                break;
+            }
+            SimulationJob job = jobs.get(id);
+            if (job == null || job.getState().isTerminal()) {
+                submissionOrder.remove(id);
+                jobs.remove(id);
+                excess--;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(SimulationJob::cancel);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,99 @@
+package com.concurrentprogramming.montecarlo.montecarlo.service;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.EngineMetrics;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationProfile;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// Per-request instrumentation of simulation endpoints, published through Micrometer (see /actuator/metrics):
+// montecarlo.request.phase timers for load, setup, simulate and aggregate, and per-run throughput, worker time and
+// allocation summaries. Everything here happens a few times per request; the per-chunk counters live in
+// EngineMetrics.
+@Component
+public class SimulationMetrics {
+    private final MeterRegistry registry;
+
+    public SimulationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Run start(String endpoint) {
+        return new Run(endpoint);
+    }
+
+    public <T> T time(String phase, String endpoint, Supplier<T> step) {
+        return phaseTimer(phase, endpoint).record(step);
+    }
+
+    private Timer phaseTimer(String phase, String endpoint) {
+        return Timer.builder("montecarlo.request.phase")
+                .description("Time spent in each phase of a simulation request")
+                .tag("phase", phase)
+                .tag("endpoint", endpoint)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    private DistributionSummary summary(String name, String description, String baseUnit, String endpoint) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit(baseUnit)
+                .tag("endpoint", endpoint)
+                .register(registry);
+    }
+
+    // One request: times its phases and, on finish, records what its run cost. Allocation is every chunk's, on
+    // whichever thread ran it (sequential runs use the request thread), plus the request thread's own outside the
+    // simulate phase, so no chunk is counted twice.
+    public final class Run {
+        private final String endpoint;
+        private final SimulationProfile profile = new SimulationProfile();
+        private final long startBytes = EngineMetrics.currentThreadAllocatedBytes();
+        private long simulateNanos;
+        private long simulateThreadBytes;
+
+        private Run(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public SimulationProfile getProfile() {
+            return profile;
+        }
+
+        public <T> T phase(String phase, Supplier<T> step) {
+            return time(phase, endpoint, step);
+        }
+
+        // The simulate phase, whose wall time is also the basis of the run's throughput
+        public <T> T simulate(Supplier<T> step) {
+            long start = System.nanoTime();
+            long startThreadBytes = EngineMetrics.currentThreadAllocatedBytes();
+            try {
+                return phase("simulate", step);
+            } finally {
+                simulateNanos += System.nanoTime() - start;
+                simulateThreadBytes += EngineMetrics.currentThreadAllocatedBytes() - startThreadBytes;
+            }
+        }
+
+        public void finish() {
+            long requestThreadBytes = EngineMetrics.currentThreadAllocatedBytes() - startBytes - simulateThreadBytes;
+            long allocated = profile.getAllocatedBytes() + requestThreadBytes;
+            summary("montecarlo.request.allocated", "Bytes allocated to serve a simulation request", "bytes", endpoint)
+                    .record(allocated);
+            summary("montecarlo.request.paths", "Paths simulated per request", "paths", endpoint)
+                    .record(profile.getPaths());
+            if (simulateNanos > 0) {
+                summary("montecarlo.request.throughput", "Paths simulated per second of wall time", "paths/s", endpoint)
+                        .record(profile.getPaths() * 1e9 / simulateNanos);
+                // Worker time over wall time: how many workers the run kept busy on average
+                summary("montecarlo.request.parallelism", "Average number of busy workers during the run", "workers", endpoint)
+                        .record((double) profile.getWorkerNanos() / simulateNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.concurrentprogramming.montecarlo.montecarlo.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Thrown when there is no capacity to accept more simulation work; clients should retry later
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class SimulationRejectedException extends RuntimeException {
+    public SimulationRejectedException(String message) {
+        super(message);
+    }
+}
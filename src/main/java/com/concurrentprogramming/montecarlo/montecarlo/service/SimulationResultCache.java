@@ -0,0 +1,214 @@
+package com.concurrentprogramming.montecarlo.montecarlo.service;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.PortfolioRequest;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationResultCacheStats;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationSummary;
+import com.concurrentprogramming.montecarlo.montecarlo.model.StockDataCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Size-bounded LRU cache of finished simulation results, for dashboards that send the same request over and over.
+// Keys are the normalized request (tickers in order, weights, horizon, simulation count, model options, seed) plus
+// the data version of every ticker, so appended or reloaded prices never return a stale result. Results expire
+// ttl after they complete. Identical requests that arrive while the first one is still running wait for that run
+// instead of starting their own (single flight); a failed run is not cached. Besides the entry count, the cache is
+// bounded by the callers' estimate of each result's size: least recently used entries are evicted until the total
+// fits in maxBytes, and a result estimated at more than maxBytes / 4 is never cached.
+@Component
+public class SimulationResultCache {
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder sharedRuns = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder uncached = new LongAdder();
+
+    private static final class Entry {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final long bytes;
+        private volatile long completedAtNanos;
+
+        private Entry(long bytes) {
+            this.bytes = bytes;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return result.isDone() && now - completedAtNanos >= ttlNanos;
+        }
+    }
+
+    public SimulationResultCache(@Value("${montecarlo.result-cache.max-entries:64}") int maxEntries,
+                                 @Value("${montecarlo.result-cache.max-bytes:268435456}") long maxBytes,
+                                 @Value("${montecarlo.result-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    // Cache key for one endpoint's view of the request; call after the weights are normalized and the price data
+    // loaded. Options an endpoint ignores are part of the key anyway, which only costs the occasional extra miss.
+    public static String keyFor(String endpoint, PortfolioRequest request) {
+        return keyFor(endpoint, request, StockDataCache.getInstance());
+    }
+
+    static String keyFor(String endpoint, PortfolioRequest request, StockDataCache dataCache) {
+        StringBuilder key = new StringBuilder(endpoint).append('|');
+        for (Map.Entry<String, Double> entry : new TreeMap<>(request.getStockWeights()).entrySet()) {
+            key.append(entry.getKey()).append('@').append(dataCache.get(entry.getKey()).getDataVersion())
+                    .append('=').append(entry.getValue()).append(',');
+        }
+        return key.append('|').append(request.getInitialCapital())
+                .append('|').append(request.getDaysToPredict())
+                .append('|').append(request.getNumSimulations())
+                .append('|').append(request.getSamplePaths())
+                .append('|').append(request.getSeed())
+                .append('|').append(request.getExecutionMode())
+                .append('|').append(request.getGaussianSampler())
+                .append('|').append(request.getVarianceReduction())
+                .append('|').append(request.getLookbackDays())
+                .append('|').append(request.getTargetRelativeError())
+                .append('|').append(request.getMaxSimulations())
+                .append('|').append(request.getMaxMillis())
+                .append('|').append(request.getQuantiles())
+                .append('|').append(request.getRiskLevels())
+                .toString();
+    }
+
+    // Estimated size of a /simulate result: every path's values as doubles
+    public static long pathBytes(PortfolioRequest request) {
+        return (long) request.getNumSimulations() * (request.getDaysToPredict() + 1) * Double.BYTES;
+    }
+
+    // Estimated size of a /simulate/summary result: the daily mean and bands, the quantile bands and the sample paths
+    public static long summaryBytes(PortfolioRequest request) {
+        int quantiles = request.getQuantiles() == null ? SimulationSummary.DEFAULT_QUANTILES.size()
+                : request.getQuantiles().size();
+        return (long) (3 + quantiles + Math.max(0, request.getSamplePaths())) * (request.getDaysToPredict() + 1)
+                * Double.BYTES;
+    }
+
+    // Returns the cached result for key, waits for an identical run in progress, or runs simulation and caches it;
+    // estimatedBytes is what the result will hold in memory
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, long estimatedBytes, Supplier<T> simulation) {
+        if (maxEntries <= 0) {
+            misses.increment();
+            return simulation.get();
+        }
+        if (estimatedBytes > maxBytes / 4) {
+            uncached.increment();
+            return simulation.get();
+        }
+        Entry entry;
+        boolean owner = false;
+        long now = System.nanoTime();
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.isExpired(now, ttlNanos)) {
+                remove(key, entry);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry(estimatedBytes);
+                entries.put(key, entry);
+                bytes += estimatedBytes;
+                owner = true;
+                evictEldest(entry);
+            }
+        }
+
+        if (!owner) {
+            if (entry.result.isDone()) {
+                hits.increment();
+            } else {
+                sharedRuns.increment();
+            }
+            return (T) join(entry.result);
+        }
+        misses.increment();
+        try {
+            T result = simulation.get();
+            entry.completedAtNanos = System.nanoTime();
+            entry.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            synchronized (entries) {
+                remove(key, entry);
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Callers hold the entries lock. The newest entry is never evicted; callers already waiting on an evicted run
+    // still get its result.
+    private void evictEldest(Entry newest) {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            Map.Entry<String, Entry> next = eldest.next();
+            if (next.getValue() == newest) {
+                continue;
+            }
+            eldest.remove();
+            bytes -= next.getValue().bytes;
+            evictions.increment();
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            bytes -= entry.bytes;
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    public SimulationResultCacheStats getStats() {
+        int size;
+        long cachedBytes;
+        synchronized (entries) {
+            size = entries.size();
+            cachedBytes = bytes;
+        }
+        return new SimulationResultCacheStats(size, maxEntries, cachedBytes, maxBytes,
+                TimeUnit.NANOSECONDS.toSeconds(ttlNanos), hits.sum(), sharedRuns.sum(), misses.sum(), uncached.sum(),
+                expirations.sum(), evictions.sum());
+    }
+}
@@ -0,0 +1,402 @@
+package com.concurrentprogramming.montecarlo.montecarlo.service;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.PercentileBand;
+import com.concurrentprogramming.montecarlo.montecarlo.model.PortfolioRequest;
+import com.concurrentprogramming.montecarlo.montecarlo.model.RunTicker;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationResult;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationRun;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationStatistics;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationSummary;
+import com.concurrentprogramming.montecarlo.montecarlo.model.StockDataCache;
+import com.concurrentprogramming.montecarlo.montecarlo.model.VarianceReduction;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Stores finished simulation runs in the configured JDBC datasource (embedded H2 unless spring.datasource.* says
+// otherwise; the tables are in schema.sql). record() reduces the run to its scalars and downsampled percentile bands
+// and queues that, so a queued run holds O(band points) values and never the paths themselves: a single writer
+// thread drains the queue and inserts each drained group in one transaction with batched ticker and band rows. When
+// the queue is full the run is dropped and counted rather than slowing the request down.
+@Repository
+public class SimulationRunRepository {
+    private static final double[] PERCENTILES = {0.05, 0.25, 0.50, 0.75, 0.95};
+
+    private static final String INSERT_RUN = "INSERT INTO simulation_run (created_at, endpoint, ticker_set, "
+            + "initial_capital, days_to_predict, num_simulations, seed, variance_reduction, lookback_days, "
+            + "execution_time_ms, mean_final_value, standard_error, std_dev_final_value, min_final_value, "
+            + "max_final_value) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TICKER =
+            "INSERT INTO simulation_run_ticker (run_id, ticker, weight, data_version) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_BAND = "INSERT INTO simulation_run_band "
+            + "(run_id, day_index, mean_value, p05, p25, p50, p75, p95) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_RUN = "SELECT id, created_at, endpoint, initial_capital, days_to_predict, "
+            + "num_simulations, seed, variance_reduction, lookback_days, execution_time_ms, mean_final_value, "
+            + "standard_error, std_dev_final_value, min_final_value, max_final_value FROM simulation_run r";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int bandPoints;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingRun> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    // Everything needed to write one run, captured on the request thread: bands of materialized runs are computed
+    // from their paths, those of streamed runs come from the quantile sketches, before the run is queued
+    private static final class PendingRun {
+        private final Instant createdAt = Instant.now();
+        private final String endpoint;
+        private final List<RunTicker> tickers;
+        private final double initialCapital;
+        private final int daysToPredict;
+        private final Long seed;
+        private final VarianceReduction varianceReduction;
+        private final Integer lookbackDays;
+        private final long numSimulations;
+        private final double meanFinalValue;
+        private final double standardError;
+        private final double stdDevFinalValue;
+        private final double minFinalValue;
+        private final double maxFinalValue;
+        private final long executionTime;
+        private final List<PercentileBand> bands;
+
+        private PendingRun(String endpoint, PortfolioRequest request, VarianceReduction varianceReduction,
+                           long numSimulations, double meanFinalValue, double standardError, double stdDevFinalValue,
+                           double minFinalValue, double maxFinalValue, long executionTime, List<PercentileBand> bands) {
+            this.endpoint = endpoint;
+            this.tickers = tickersOf(request);
+            this.initialCapital = request.getInitialCapital();
+            this.daysToPredict = request.getDaysToPredict();
+            this.seed = request.getSeed();
+            this.varianceReduction = varianceReduction;
+            this.lookbackDays = request.getLookbackDays();
+            this.numSimulations = numSimulations;
+            this.meanFinalValue = meanFinalValue;
+            this.standardError = standardError;
+            this.stdDevFinalValue = stdDevFinalValue;
+            this.minFinalValue = minFinalValue;
+            this.maxFinalValue = maxFinalValue;
+            this.executionTime = executionTime;
+            this.bands = bands;
+        }
+
+        private String tickerSet() {
+            StringBuilder tickerSet = new StringBuilder();
+            for (RunTicker ticker : tickers) {
+                tickerSet.append(tickerSet.isEmpty() ? "" : ",").append(ticker.getTicker());
+            }
+            return tickerSet.toString();
+        }
+    }
+
+    public SimulationRunRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   @Value("${montecarlo.persistence.band-points:64}") int bandPoints,
+                                   @Value("${montecarlo.persistence.queue-capacity:1024}") int queueCapacity,
+                                   @Value("${montecarlo.persistence.max-batch-size:64}") int maxBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bandPoints = Math.max(2, bandPoints);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.writer = new Thread(this::drain, "simulation-run-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void record(String endpoint, PortfolioRequest request, SimulationResult result) {
+        List<double[]> paths = result.getAllSimulations();
+        double minFinalValue = paths.isEmpty() ? result.getMeanFinalValue() : Double.POSITIVE_INFINITY;
+        double maxFinalValue = paths.isEmpty() ? result.getMeanFinalValue() : Double.NEGATIVE_INFINITY;
+        for (double[] path : paths) {
+            minFinalValue = Math.min(minFinalValue, path[path.length - 1]);
+            maxFinalValue = Math.max(maxFinalValue, path[path.length - 1]);
+        }
+        enqueue(new PendingRun(endpoint, request, request.getVarianceReduction(), paths.size(),
+                result.getMeanFinalValue(), result.getStandardError(), result.getStdDev(), minFinalValue,
+                maxFinalValue, result.getExecutionTime(), bands(paths)));
+    }
+
+    // statistics is the accumulator summary was built from; its sketches give the stored percentile bands
+    public void record(String endpoint, PortfolioRequest request, SimulationSummary summary, SimulationStatistics statistics) {
+        List<PercentileBand> bands = new ArrayList<>();
+        if (statistics.getCount() > 0) {
+            double[] dailyMean = summary.getDailyMean();
+            double[][] dailyPercentiles = new double[PERCENTILES.length][];
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                dailyPercentiles[i] = statistics.getDailyQuantile(PERCENTILES[i]);
+            }
+            for (int day : bandDays(dailyMean.length - 1)) {
+                bands.add(new PercentileBand(day, dailyMean[day], dailyPercentiles[0][day], dailyPercentiles[1][day],
+                        dailyPercentiles[2][day], dailyPercentiles[3][day], dailyPercentiles[4][day]));
+            }
+        }
+        enqueue(new PendingRun(endpoint, request, summary.getVarianceReduction(), summary.getNumSimulations(),
+                summary.getMeanFinalValue(), summary.getStandardError(), summary.getStdDevFinalValue(),
+                summary.getMinFinalValue(), summary.getMaxFinalValue(), summary.getExecutionTime(), bands));
+    }
+
+    private void enqueue(PendingRun run) {
+        if (queue.offer(run)) {
+            queued.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private static List<RunTicker> tickersOf(PortfolioRequest request) {
+        List<RunTicker> tickers = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : new TreeMap<>(request.getStockWeights()).entrySet()) {
+            long dataVersion = StockDataCache.getInstance().get(entry.getKey()).getDataVersion();
+            tickers.add(new RunTicker(entry.getKey(), entry.getValue(), dataVersion));
+        }
+        return tickers;
+    }
+
+    private void drain() {
+        List<PendingRun> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingRun first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                write(batch);
+                written.add(batch.size());
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                failed.add(batch.size());
+                System.err.println("Error persisting " + batch.size() + " simulation runs");
+                e.printStackTrace();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingRun> batch) {
+        List<Object[]> tickerRows = new ArrayList<>();
+        List<Object[]> bandRows = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (PendingRun run : batch) {
+                long runId = insertRun(run);
+                for (RunTicker ticker : run.tickers) {
+                    tickerRows.add(new Object[]{runId, ticker.getTicker(), ticker.getWeight(), ticker.getDataVersion()});
+                }
+                for (PercentileBand band : run.bands) {
+                    bandRows.add(new Object[]{runId, band.getDay(), band.getMean(), band.getP05(), band.getP25(),
+                            band.getP50(), band.getP75(), band.getP95()});
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_TICKER, tickerRows);
+            jdbcTemplate.batchUpdate(INSERT_BAND, bandRows,
+                    new int[]{Types.BIGINT, Types.INTEGER, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE,
+                            Types.DOUBLE, Types.DOUBLE});
+        });
+    }
+
+    private long insertRun(PendingRun run) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_RUN, new String[]{"id"});
+            statement.setTimestamp(1, Timestamp.from(run.createdAt));
+            statement.setString(2, run.endpoint);
+            statement.setString(3, run.tickerSet());
+            statement.setDouble(4, run.initialCapital);
+            statement.setInt(5, run.daysToPredict);
+            statement.setLong(6, run.numSimulations);
+            statement.setObject(7, run.seed, Types.BIGINT);
+            statement.setString(8, run.varianceReduction == null ? null : run.varianceReduction.name());
+            statement.setObject(9, run.lookbackDays, Types.INTEGER);
+            statement.setLong(10, run.executionTime);
+            statement.setDouble(11, run.meanFinalValue);
+            statement.setDouble(12, run.standardError);
+            statement.setDouble(13, run.stdDevFinalValue);
+            statement.setDouble(14, run.minFinalValue);
+            statement.setDouble(15, run.maxFinalValue);
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    // At most bandPoints evenly spaced days, always including the first and the last
+    private int[] bandDays(int days) {
+        if (days < 0) {
+            return new int[0];
+        }
+        int points = Math.min(days + 1, bandPoints);
+        int[] bandDays = new int[points];
+        for (int point = 0; point < points; point++) {
+            bandDays[point] = points == 1 ? 0 : (int) Math.round((double) point * days / (points - 1));
+        }
+        return bandDays;
+    }
+
+    // One column of the paths at a time, so only a single day's values are copied
+    private List<PercentileBand> bands(List<double[]> paths) {
+        int[] bandDays = bandDays(paths.isEmpty() ? -1 : paths.get(0).length - 1);
+        List<PercentileBand> bands = new ArrayList<>(bandDays.length);
+        double[] values = new double[paths.size()];
+        for (int day : bandDays) {
+            double sum = 0.0;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = paths.get(i)[day];
+                sum += values[i];
+            }
+            Arrays.sort(values);
+            bands.add(new PercentileBand(day, sum / values.length, percentile(values, PERCENTILES[0]),
+                    percentile(values, PERCENTILES[1]), percentile(values, PERCENTILES[2]),
+                    percentile(values, PERCENTILES[3]), percentile(values, PERCENTILES[4])));
+        }
+        return bands;
+    }
+
+    // Linear interpolation between the closest ranks of sorted values
+    private static double percentile(double[] sorted, double probability) {
+        double position = probability * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    // Newest first. tickers, when given, must match the run's ticker set exactly (any order); ticker selects runs
+    // that include that ticker; from and to are inclusive UTC dates.
+    public List<SimulationRun> findRuns(List<String> tickers, String ticker, LocalDate from, LocalDate to, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT_RUN).append(" WHERE 1 = 1");
+        List<Object> arguments = new ArrayList<>();
+        if (tickers != null && !tickers.isEmpty()) {
+            sql.append(" AND r.ticker_set = ?");
+            arguments.add(String.join(",", new TreeSet<>(tickers)));
+        }
+        if (ticker != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM simulation_run_ticker t WHERE t.run_id = r.id AND t.ticker = ?)");
+            arguments.add(ticker);
+        }
+        if (from != null) {
+            sql.append(" AND r.created_at >= ?");
+            arguments.add(Timestamp.from(from.atStartOfDay(ZoneOffset.UTC).toInstant()));
+        }
+        if (to != null) {
+            sql.append(" AND r.created_at < ?");
+            arguments.add(Timestamp.from(to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant()));
+        }
+        sql.append(" ORDER BY r.created_at DESC, r.id DESC LIMIT ?");
+        arguments.add(limit);
+
+        // Tickers are attached after the runs are read, with one query for the whole page
+        List<SimulationRun> runs = jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> mapRun(rs, new ArrayList<>(), null), arguments.toArray());
+        List<Long> runIds = new ArrayList<>(runs.size());
+        for (SimulationRun run : runs) {
+            runIds.add(run.getId());
+        }
+        Map<Long, List<RunTicker>> runTickers = tickersFor(runIds);
+        for (SimulationRun run : runs) {
+            run.getTickers().addAll(runTickers.getOrDefault(run.getId(), List.of()));
+        }
+        return runs;
+    }
+
+    // The run with its tickers and percentile bands, or null
+    public SimulationRun findRun(long id) {
+        List<RunTicker> tickers = tickersFor(List.of(id)).getOrDefault(id, List.of());
+        List<PercentileBand> bands = jdbcTemplate.query(
+                "SELECT day_index, mean_value, p05, p25, p50, p75, p95 FROM simulation_run_band WHERE run_id = ? ORDER BY day_index",
+                (rs, rowNum) -> new PercentileBand(rs.getInt(1), rs.getDouble(2), rs.getObject(3, Double.class),
+                        rs.getObject(4, Double.class), rs.getObject(5, Double.class), rs.getObject(6, Double.class),
+                        rs.getObject(7, Double.class)),
+                id);
+        List<SimulationRun> runs = jdbcTemplate.query(SELECT_RUN + " WHERE r.id = ?",
+                (rs, rowNum) -> mapRun(rs, tickers, bands), id);
+        return runs.isEmpty() ? null : runs.get(0);
+    }
+
+    private Map<Long, List<RunTicker>> tickersFor(Collection<Long> runIds) {
+        Map<Long, List<RunTicker>> tickers = new HashMap<>();
+        if (runIds.isEmpty()) {
+            return tickers;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(runIds.size(), "?"));
+        jdbcTemplate.query("SELECT run_id, ticker, weight, data_version FROM simulation_run_ticker WHERE run_id IN ("
+                        + placeholders + ") ORDER BY run_id, ticker",
+                rs -> {
+                    tickers.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>())
+                            .add(new RunTicker(rs.getString(2), rs.getDouble(3), rs.getLong(4)));
+                }, runIds.toArray());
+        return tickers;
+    }
+
+    private static SimulationRun mapRun(ResultSet rs, List<RunTicker> tickers, List<PercentileBand> bands) throws SQLException {
+        String varianceReduction = rs.getString("variance_reduction");
+        return new SimulationRun(rs.getLong("id"), rs.getTimestamp("created_at").toInstant(), rs.getString("endpoint"),
+                tickers, rs.getDouble("initial_capital"), rs.getInt("days_to_predict"), rs.getLong("num_simulations"),
+                rs.getObject("seed", Long.class),
+                varianceReduction == null ? null : VarianceReduction.valueOf(varianceReduction),
+                rs.getObject("lookback_days", Integer.class), rs.getLong("execution_time_ms"),
+                rs.getDouble("mean_final_value"), rs.getDouble("standard_error"), rs.getDouble("std_dev_final_value"),
+                rs.getDouble("min_final_value"), rs.getDouble("max_final_value"), bands);
+    }
+
+    public long getQueued() {
+        return queued.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    // Writes what is already queued before the datasource shuts down
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
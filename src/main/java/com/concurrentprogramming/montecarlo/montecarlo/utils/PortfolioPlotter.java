@@ -1,39 +1,176 @@
 package com.concurrentprogramming.montecarlo.montecarlo.utils;
 
+import com.concurrentprogramming.montecarlo.montecarlo.model.QuantileBand;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationSummary;
+import org.knowm.xchart.BitmapEncoder;
 import org.knowm.xchart.SwingWrapper;
+import org.knowm.xchart.VectorGraphicsEncoder;
 import org.knowm.xchart.XYChart;
 import org.knowm.xchart.XYChartBuilder;
+import org.knowm.xchart.XYSeries;
+import org.knowm.xchart.style.markers.SeriesMarkers;
 
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 
 public class PortfolioPlotter {
+    private static final Color BAND_COLOR = new Color(31, 119, 180);
+    private static final Color PATH_COLOR = new Color(128, 128, 128, 96);
 
-    public static void plotSimulations(List<List<Double>> simulations) {
-        XYChart chart = new XYChartBuilder()
-                .width(800)
-                .height(600)
-                .title("Portfolio Simulations")
-                .xAxisTitle("Days")
-                .yAxisTitle("Portfolio Value")
-                .build();
+    public enum ChartFormat {
+        PNG("image/png"),
+        SVG("image/svg+xml");
 
-        int maxSimulations = Math.min(simulations.size(), 20);
+        private final String mediaType;
+
+        ChartFormat(String mediaType) {
+            this.mediaType = mediaType;
+        }
 
+        public String getMediaType() {
+            return mediaType;
+        }
+    }
+
+    // Desktop only: opens a Swing window, so it cannot run on a headless server (use fanChart and render there)
+    public static void plotSimulations(List<double[]> simulations) {
+        XYChart chart = newChart(800, 600, "Portfolio Simulations");
+
+        int maxSimulations = Math.min(simulations.size(), 20);
+        double[] xData = null;
         for (int i = 0; i < maxSimulations; i++) {
-            List<Double> simulation = simulations.get(i);
+            double[] simulation = simulations.get(i);
+            if (xData == null || xData.length != simulation.length) {
+                xData = new double[simulation.length];
+                for (int day = 0; day < simulation.length; day++) {
+                    xData[day] = day + 1;
+                }
+            }
+            chart.addSeries("Simulation " + (i + 1), xData, simulation);
+        }
+
+        new SwingWrapper<>(chart).displayChart();
+    }
+
+    // Fan chart of a streamed run: nested bands between symmetric pairs of its quantiles (lightest outermost), the
+    // median when requested, the mean and up to maxPaths sample paths. Built from the summary's aggregates only, so
+    // the cost depends on the horizon and the number of bands, not on how many paths were simulated; series are
+    // thinned to at most one point per pixel of width.
+    public static XYChart fanChart(SimulationSummary summary, int width, int height, int maxPaths) {
+        XYChart chart = newChart(width, height, "Portfolio Simulations (" + summary.getNumSimulations() + " paths)");
+        chart.getStyler().setMarkerSize(0);
 
-            List<Integer> xData = new ArrayList<>();
-            for (int day = 0; day < simulation.size(); day++) {
-                xData.add(day + 1);
+        double[] mean = summary.getDailyMean();
+        int stride = Math.max(1, (mean.length + width - 1) / width);
+        double[] days = days(mean.length, stride);
+
+        // Pairs from the outside in, so quantiles may be requested in any order
+        List<QuantileBand> quantiles = new ArrayList<>();
+        for (QuantileBand band : summary.getQuantiles()) {
+            if (quantiles.stream().noneMatch(q -> q.getProbability() == band.getProbability())) {
+                quantiles.add(band);
+            }
+        }
+        quantiles.sort(Comparator.comparingDouble(QuantileBand::getProbability));
+        int bands = quantiles.size() / 2;
+        for (int b = 0; b < bands; b++) {
+            QuantileBand lower = quantiles.get(b);
+            QuantileBand upper = quantiles.get(quantiles.size() - 1 - b);
+            double[] lowerValues = thin(lower.getDaily(), stride);
+            double[] upperValues = thin(upper.getDaily(), stride);
+            // The band as one polygon: along the lower quantile, then back along the upper one
+            double[] polygonX = new double[2 * days.length];
+            double[] polygonY = new double[2 * days.length];
+            for (int i = 0; i < days.length; i++) {
+                polygonX[i] = days[i];
+                polygonY[i] = lowerValues[i];
+                polygonX[polygonX.length - 1 - i] = days[i];
+                polygonY[polygonY.length - 1 - i] = upperValues[i];
             }
+            XYSeries series = chart.addSeries(bandName(lower) + "-" + bandName(upper), polygonX, polygonY);
+            series.setXYSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.PolygonArea);
+            series.setFillColor(withAlpha(BAND_COLOR, 48 + 112 * (b + 1) / (bands + 1)));
+            series.setLineColor(withAlpha(BAND_COLOR, 0));
+            series.setMarker(SeriesMarkers.NONE);
+        }
+        if (quantiles.size() % 2 == 1) {
+            QuantileBand median = quantiles.get(bands);
+            line(chart, bandName(median), days, thin(median.getDaily(), stride), BAND_COLOR.darker(), 2f);
+        }
+        line(chart, "Mean", days, thin(mean, stride), Color.BLACK, 2f);
 
-            List<Double> yData = new ArrayList<>(simulation);
+        List<double[]> samplePaths = summary.getSamplePaths();
+        for (int i = 0; i < Math.min(samplePaths.size(), maxPaths); i++) {
+            XYSeries series = line(chart, "Path " + (i + 1), days, thin(samplePaths.get(i), stride), PATH_COLOR, 1f);
+            series.setShowInLegend(false);
+        }
+        return chart;
+    }
 
-            chart.addSeries("Simulation " + (i + 1), xData, yData);
+    public static byte[] render(XYChart chart, ChartFormat format) {
+        try {
+            if (format == ChartFormat.PNG) {
+                return BitmapEncoder.getBitmapBytes(chart, BitmapEncoder.BitmapFormat.PNG);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            VectorGraphicsEncoder.saveVectorGraphic(chart, out, VectorGraphicsEncoder.VectorGraphicsFormat.SVG);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        new SwingWrapper<>(chart).displayChart();
+    private static XYChart newChart(int width, int height, String title) {
+        return new XYChartBuilder()
+                .width(width)
+                .height(height)
+                .title(title)
+                .xAxisTitle("Days")
+                .yAxisTitle("Portfolio Value")
+                .build();
+    }
+
+    private static XYSeries line(XYChart chart, String name, double[] days, double[] values, Color color, float width) {
+        XYSeries series = chart.addSeries(name, days, values);
+        series.setXYSeriesRenderStyle(XYSeries.XYSeriesRenderStyle.Line);
+        series.setLineColor(color);
+        series.setLineStyle(new BasicStroke(width));
+        series.setMarker(SeriesMarkers.NONE);
+        return series;
+    }
+
+    // Every stride-th day, always ending on the last one
+    private static double[] days(int length, int stride) {
+        double[] days = new double[(length - 1 + stride - 1) / stride + 1];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = Math.min(i * stride, length - 1);
+        }
+        return days;
+    }
+
+    private static double[] thin(double[] values, int stride) {
+        if (stride == 1) {
+            return values;
+        }
+        double[] thinned = new double[(values.length - 1 + stride - 1) / stride + 1];
+        for (int i = 0; i < thinned.length; i++) {
+            thinned[i] = values[Math.min(i * stride, values.length - 1)];
+        }
+        return thinned;
+    }
+
+    private static String bandName(QuantileBand band) {
+        return "p" + BigDecimal.valueOf(band.getProbability()).movePointRight(2).stripTrailingZeros().toPlainString();
+    }
+
+    private static Color withAlpha(Color color, int alpha) {
+        return new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha);
     }
 }
@@ -0,0 +1,78 @@
+package com.concurrentprogramming.montecarlo.montecarlo.utils;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.PathBatchConsumer;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationStatistics;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationSummary;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+// Writes a batched simulation run to a response as it is produced, either as newline-delimited JSON or as
+// Server-Sent Events. Every event is a JSON object with a "type": "path" for each simulated path, "progress" after
+// each batch and "summary" once at the end. Output is flushed after every batch; writes block while the client is
+// not reading, which in turn holds back the next batch. A failed write (e.g. the client went away) is rethrown as
+// UncheckedIOException so the run stops.
+public class SimulationStreamWriter implements PathBatchConsumer {
+    private final JsonGenerator generator;
+    private final boolean serverSentEvents;
+
+    public SimulationStreamWriter(ObjectMapper objectMapper, OutputStream out, boolean serverSentEvents) {
+        try {
+            this.generator = objectMapper.createGenerator(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.setRootValueSeparator(null);
+        this.serverSentEvents = serverSentEvents;
+    }
+
+    @Override
+    public void accept(int firstIndex, double[][] paths, int count, SimulationStatistics statistics) {
+        try {
+            for (int i = 0; i < count; i++) {
+                startEvent("path");
+                generator.writeNumberField("index", firstIndex + i);
+                generator.writeFieldName("values");
+                generator.writeArray(paths[i], 0, paths[i].length);
+                endEvent();
+            }
+            startEvent("progress");
+            generator.writeNumberField("completedPaths", statistics.getCount());
+            generator.writeNumberField("meanFinalValue", statistics.getEstimator().getEstimate());
+            generator.writeNumberField("standardError", statistics.getEstimator().getStandardError());
+            generator.writeNumberField("stdDev", statistics.getStandardDeviation());
+            endEvent();
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeSummary(SimulationSummary summary) {
+        try {
+            startEvent("summary");
+            generator.writeObjectField("summary", summary);
+            endEvent();
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void startEvent(String type) throws IOException {
+        if (serverSentEvents) {
+            generator.writeRaw("event: " + type + "\ndata: ");
+        }
+        generator.writeStartObject();
+        generator.writeStringField("type", type);
+    }
+
+    private void endEvent() throws IOException {
+        generator.writeEndObject();
+        generator.writeRaw(serverSentEvents ? "\n\n" : "\n");
+    }
+}
@@ -0,0 +1,45 @@
+-- Simulation runs persisted by SimulationRunRepository. Runs are looked up by their sorted ticker set and creation
+-- time, or by any ticker they contain; the percentile bands of a run are read together by run id.
+CREATE TABLE IF NOT EXISTS simulation_run (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    created_at TIMESTAMP NOT NULL,
+    endpoint VARCHAR(32) NOT NULL,
+    ticker_set VARCHAR(1024) NOT NULL,
+    initial_capital DOUBLE NOT NULL,
+    days_to_predict INT NOT NULL,
+    num_simulations BIGINT NOT NULL,
+    seed BIGINT,
+    variance_reduction VARCHAR(32),
+    lookback_days INT,
+    execution_time_ms BIGINT NOT NULL,
+    mean_final_value DOUBLE NOT NULL,
+    standard_error DOUBLE NOT NULL,
+    std_dev_final_value DOUBLE NOT NULL,
+    min_final_value DOUBLE NOT NULL,
+    max_final_value DOUBLE NOT NULL
+);
+CREATE INDEX IF NOT EXISTS simulation_run_ticker_set_created_at ON simulation_run (ticker_set, created_at);
+CREATE INDEX IF NOT EXISTS simulation_run_created_at ON simulation_run (created_at);
+
+CREATE TABLE IF NOT EXISTS simulation_run_ticker (
+    run_id BIGINT NOT NULL,
+    ticker VARCHAR(32) NOT NULL,
+    weight DOUBLE NOT NULL,
+    data_version BIGINT NOT NULL,
+    PRIMARY KEY (run_id, ticker),
+    FOREIGN KEY (run_id) REFERENCES simulation_run (id) ON DELETE CASCADE
+);
+CREATE INDEX IF NOT EXISTS simulation_run_ticker_ticker ON simulation_run_ticker (ticker, run_id);
+
+CREATE TABLE IF NOT EXISTS simulation_run_band (
+    run_id BIGINT NOT NULL,
+    day_index INT NOT NULL,
+    mean_value DOUBLE NOT NULL,
+    p05 DOUBLE,
+    p25 DOUBLE,
+    p50 DOUBLE,
+    p75 DOUBLE,
+    p95 DOUBLE,
+    PRIMARY KEY (run_id, day_index),
+    FOREIGN KEY (run_id) REFERENCES simulation_run (id) ON DELETE CASCADE
+);
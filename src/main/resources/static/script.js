@@ -95,7 +95,8 @@ document.addEventListener("DOMContentLoaded", () => {
             return;
         }
 
-        const requestData = { initialCapital, stockWeights, daysToPredict, numSimulations };
+        // The page shows sequential and parallel timings side by side, so it asks for the diagnostic compare mode
+        const requestData = { initialCapital, stockWeights, daysToPredict, numSimulations, executionMode: "COMPARE" };
 
         try {
             const response = await fetch("http://localhost:8080/portfolio-simulation/simulate", {
@@ -110,13 +111,15 @@ document.addEventListener("DOMContentLoaded", () => {
 
             const result = await response.json();
 
-            sequentialMeanFinalValue.textContent = result.sequentialMean.toFixed(2);
-            sequentialStandardDeviation.textContent = result.sequentialStdDev.toFixed(2);
-            sequentialExecutionTime.textContent = result.sequentialExecutionTime;
+            const [sequential, parallel] = result.comparison;
 
-            parallelMeanFinalValue.textContent = result.parallelMean.toFixed(2);
-            parallelStandardDeviation.textContent = result.parallelStdDev.toFixed(2);
-            parallelExecutionTime.textContent = result.parallelExecutionTime;
+            sequentialMeanFinalValue.textContent = sequential.meanFinalValue.toFixed(2);
+            sequentialStandardDeviation.textContent = sequential.stdDev.toFixed(2);
+            sequentialExecutionTime.textContent = sequential.executionTime;
+
+            parallelMeanFinalValue.textContent = parallel.meanFinalValue.toFixed(2);
+            parallelStandardDeviation.textContent = parallel.stdDev.toFixed(2);
+            parallelExecutionTime.textContent = parallel.executionTime;
 
             if (chart) chart.destroy();
 
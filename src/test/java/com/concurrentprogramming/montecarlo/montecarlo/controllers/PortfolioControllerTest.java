@@ -0,0 +1,169 @@
+package com.concurrentprogramming.montecarlo.montecarlo.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.concurrentprogramming.montecarlo.montecarlo.service.SimulationAdmission;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PortfolioControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private SimulationAdmission admission;
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+			"\"targetRelativeError\": 0",
+			"\"targetRelativeError\": -0.01",
+			"\"targetRelativeError\": 0.01, \"maxSimulations\": 0",
+			"\"targetRelativeError\": 0.01, \"maxMillis\": 0",
+			"\"targetRelativeError\": 0.01, \"maxMillis\": 9223372036854775807"})
+	void adaptiveSummaryRejectsBadCriteria(String criteria) throws Exception {
+		simulate("summary", "\"numSimulations\": 1000, " + criteria).andExpect(status().isBadRequest());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"simulate", "summary", "chart", "stream"})
+	void rejectsEmptyRunsAndNegativeHorizons(String endpoint) throws Exception {
+		simulate(endpoint, "\"numSimulations\": -5").andExpect(status().isBadRequest());
+		simulate(endpoint, "\"numSimulations\": 0").andExpect(status().isBadRequest());
+		simulate(endpoint, "\"numSimulations\": 1000, \"daysToPredict\": -1").andExpect(status().isBadRequest());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+			"\"frontierTickers\": [\"AAPL\"], \"frontierStep\": 1e-12",
+			"\"frontierTickers\": [\"AAPL\", \"MSFT\"], \"frontierStep\": 0.005",
+			"\"frontierTickers\": [\"AAPL\", \"AAPL\"], \"frontierStep\": 50",
+			"\"frontierTickers\": [\"AAPL\", \"MSFT\"], \"frontierStep\": 30"})
+	void batchRejectsBadFrontiers(String frontier) throws Exception {
+		batch(frontier).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void batchSweepsTheFrontier() throws Exception {
+		batch("\"frontierTickers\": [\"AAPL\", \"MSFT\"], \"frontierStep\": 50")
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.portfolios.length()").value(3));
+	}
+
+	@Test
+	void chartRenderTakesItsOwnAdmissionSlot() throws Exception {
+		String fields = "\"numSimulations\": 700, \"samplePaths\": 3";
+		simulate("summary", fields).andExpect(status().isOk());
+		long admitted = admission.getStats().getAdmitted();
+
+		// The summary is cached, so only the render is admitted
+		mockMvc.perform(post("/portfolio-simulation/simulate/chart")
+						.param("format", "svg")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"initialCapital\": 1000, \"stockWeights\": {\"AAPL\": 60, \"MSFT\": 40}, \"seed\": 1, "
+								+ "\"daysToPredict\": 30, " + fields + "}"))
+				.andExpect(status().isOk());
+		assertEquals(admitted + 1, admission.getStats().getAdmitted());
+	}
+
+	@Test
+	void adaptiveSummaryStopsWithinItsBudgets() throws Exception {
+		simulate("summary", "\"targetRelativeError\": 0.01, \"maxSimulations\": 5000, \"maxMillis\": 10000")
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.convergence").exists());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"application/x-simulation-float64", "application/x-simulation-float32"})
+	void simulateEncodesTheJsonResultAsBinaryColumns(String mediaType) throws Exception {
+		String fields = "\"numSimulations\": 300, \"daysToPredict\": 5, \"executionMode\": \"SEQUENTIAL\"";
+		JsonNode json = objectMapper.readTree(simulate("simulate", fields)
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray());
+		MockHttpServletResponse response = simulate("simulate", fields, mediaType)
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+		byte[] body = response.getContentAsByteArray();
+		assertEquals(mediaType, response.getContentType());
+		assertEquals(Integer.toString(body.length), response.getHeader(HttpHeaders.CONTENT_LENGTH));
+
+		ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals("MCSR", new String(body, 0, 4, StandardCharsets.US_ASCII));
+		buffer.position(4);
+		assertEquals(1, buffer.get());
+		int valueBytes = buffer.get();
+		assertEquals(mediaType.endsWith("float32") ? 4 : 8, valueBytes);
+		assertEquals(0, buffer.getShort());
+		JsonNode paths = json.get("allSimulations");
+		int numPaths = buffer.getInt();
+		int length = buffer.getInt();
+		assertEquals(300, numPaths);
+		assertEquals(6, length);
+		assertEquals(json.get("meanFinalValue").asDouble(), buffer.getDouble());
+		assertEquals(json.get("stdDev").asDouble(), buffer.getDouble());
+		assertEquals(json.get("standardError").asDouble(), buffer.getDouble());
+		// Timings are the run's own; the same seed only fixes the paths
+		assertTrue(buffer.getLong() >= 0);
+
+		for (int p = 0; p < numPaths; p++) {
+			assertValue(paths.get(p).get(length - 1).asDouble(), buffer, valueBytes);
+		}
+		for (int day = 0; day < length; day++) {
+			for (int p = 0; p < numPaths; p++) {
+				assertValue(paths.get(p).get(day).asDouble(), buffer, valueBytes);
+			}
+		}
+		assertEquals(0, buffer.remaining());
+	}
+
+	private static void assertValue(double expected, ByteBuffer buffer, int valueBytes) {
+		if (valueBytes == Float.BYTES) {
+			assertEquals((float) expected, buffer.getFloat());
+		} else {
+			assertEquals(expected, buffer.getDouble());
+		}
+	}
+
+	private ResultActions batch(String frontier) throws Exception {
+		return mockMvc.perform(post("/portfolio-simulation/simulate/batch")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"initialCapital\": 1000, \"daysToPredict\": 30, \"numSimulations\": 500, \"seed\": 1, "
+						+ frontier + "}"));
+	}
+
+	private ResultActions simulate(String endpoint, String fields) throws Exception {
+		return simulate(endpoint, fields, MediaType.APPLICATION_JSON_VALUE);
+	}
+
+	// fields may override daysToPredict, which defaults to 30
+	private ResultActions simulate(String endpoint, String fields, String accept) throws Exception {
+		String daysToPredict = fields.contains("daysToPredict") ? "" : "\"daysToPredict\": 30, ";
+		return mockMvc.perform(post("/portfolio-simulation/" + (endpoint.equals("simulate") ? "simulate" : "simulate/" + endpoint))
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(accept)
+				.content("{\"initialCapital\": 1000, \"stockWeights\": {\"AAPL\": 60, \"MSFT\": 40}, \"seed\": 1, "
+						+ daysToPredict + fields + "}"));
+	}
+}
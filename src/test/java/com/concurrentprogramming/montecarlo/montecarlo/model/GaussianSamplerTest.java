@@ -0,0 +1,91 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GaussianSamplerTest {
+
+	private static final int SAMPLES = 2_000_000;
+
+	private static double[] sample(GaussianSampler sampler, long seed) {
+		double[] values = new double[SAMPLES];
+		sampler.fill(RandomGeneratorFactory.of("L64X128MixRandom").create(seed), values, 0, SAMPLES);
+		return values;
+	}
+
+	@ParameterizedTest
+	@EnumSource(GaussianSampler.class)
+	void momentsMatchStandardNormal(GaussianSampler sampler) {
+		double[] values = sample(sampler, 11L);
+		double mean = Arrays.stream(values).average().orElseThrow();
+		double variance = Arrays.stream(values).map(v -> (v - mean) * (v - mean)).average().orElseThrow();
+		double kurtosis = Arrays.stream(values).map(v -> Math.pow(v - mean, 4)).average().orElseThrow() / (variance * variance);
+
+		assertEquals(0.0, mean, 0.005);
+		assertEquals(1.0, variance, 0.005);
+		assertEquals(3.0, kurtosis, 0.03);
+	}
+
+	// Compares each sampler with the legacy java.util.Random.nextGaussian sampler via the two-sample KS statistic
+	@ParameterizedTest
+	@EnumSource(GaussianSampler.class)
+	void distributionMatchesLegacySampler(GaussianSampler sampler) {
+		double[] values = sample(sampler, 23L);
+		Random legacy = new Random(23L);
+		double[] reference = new double[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			reference[i] = legacy.nextGaussian();
+		}
+		Arrays.sort(values);
+		Arrays.sort(reference);
+
+		double maxDistance = 0.0;
+		int i = 0;
+		int j = 0;
+		while (i < SAMPLES && j < SAMPLES) {
+			if (values[i] <= reference[j]) {
+				i++;
+			} else {
+				j++;
+			}
+			maxDistance = Math.max(maxDistance, Math.abs((double) i / SAMPLES - (double) j / SAMPLES));
+		}
+		// Critical value at alpha = 0.001 is 1.95 * sqrt(2 / n)
+		assertTrue(maxDistance < 1.95 * Math.sqrt(2.0 / SAMPLES), "KS distance " + maxDistance);
+	}
+
+	@ParameterizedTest
+	@EnumSource(GaussianSampler.class)
+	void tailProbabilitiesMatchStandardNormal(GaussianSampler sampler) {
+		double[] values = sample(sampler, 37L);
+		long beyondTwoSigma = Arrays.stream(values).filter(v -> Math.abs(v) > 1.959964).count();
+		long beyondThreeAndHalfSigma = Arrays.stream(values).filter(v -> v > 3.5).count();
+
+		assertEquals(0.05, (double) beyondTwoSigma / SAMPLES, 0.001);
+		// P(Z > 3.5) = 2.326e-4, so about 465 expected samples
+		assertEquals(465, beyondThreeAndHalfSigma, 90);
+	}
+
+	@ParameterizedTest
+	@EnumSource(GaussianSampler.class)
+	void fillMatchesRepeatedNext(GaussianSampler sampler) {
+		RandomGenerator first = RandomGeneratorFactory.of("L64X128MixRandom").create(5L);
+		RandomGenerator second = RandomGeneratorFactory.of("L64X128MixRandom").create(5L);
+		double[] filled = new double[1_000];
+		sampler.fill(first, filled, 0, filled.length);
+		double[] drawn = new double[1_000];
+		for (int i = 0; i < drawn.length; i++) {
+			drawn[i] = sampler.next(second);
+		}
+		assertArrayEquals(drawn, filled);
+	}
+}
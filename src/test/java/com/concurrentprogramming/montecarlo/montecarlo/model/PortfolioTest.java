@@ -0,0 +1,204 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PortfolioTest {
+
+	private final Portfolio portfolio = new Portfolio(1_000, Map.of("AAPL", 0.6, "MSFT", 0.4));
+
+	@Test
+	void parallelRunMatchesSequentialRunForSameSeed() {
+		portfolio.performMultipleSimulations(30, 1_001, 42L);
+		double[] sequentialFinalValues = portfolio.getFinalValuesDistribution();
+
+		portfolio.performMultipleSimulationsInParallel(30, 1_001, 42L);
+
+		assertEquals(1_001, portfolio.getAllSimulations().size());
+		assertArrayEquals(sequentialFinalValues, portfolio.getFinalValuesDistribution());
+	}
+
+	@Test
+	void streamingRunMatchesMaterializedRun() {
+		portfolio.performMultipleSimulations(30, 2_000, 7L);
+		SimulationStatistics statistics = portfolio.performStreamingSimulationsInParallel(30, 2_000, 3, 7L);
+
+		assertEquals(2_000, statistics.getCount());
+		assertEquals(3, statistics.getSamplePaths().size());
+		assertEquals(portfolio.getMeanFinalValue(), statistics.getMean(), 1e-9);
+		assertEquals(portfolio.getStandardDeviationFinalValue(), statistics.getStandardDeviation(), 1e-9);
+		assertArrayEquals(portfolio.getAllSimulations().get(0), statistics.getSamplePaths().get(0));
+	}
+
+	@Test
+	void sketchedQuantilesAndRiskMatchSortedPaths() {
+		portfolio.performMultipleSimulations(30, 20_000, 11L);
+		double[] sorted = portfolio.getFinalValuesDistribution().clone();
+		Arrays.sort(sorted);
+		SimulationStatistics parallel = portfolio.performStreamingSimulationsInParallel(30, 20_000, 0, 11L);
+		SimulationStatistics sequential = portfolio.performStreamingSimulations(30, 20_000, 0, 11L);
+
+		for (double probability : new double[]{0.01, 0.05, 0.5, 0.95}) {
+			double exact = sorted[(int) (probability * (sorted.length - 1))];
+			assertEquals(exact, parallel.getFinalValueQuantile(probability), exact * 1e-3);
+			assertEquals(sequential.getFinalValueQuantile(probability), parallel.getFinalValueQuantile(probability));
+		}
+		double tailSum = 0.0;
+		for (int i = 0; i < sorted.length / 20; i++) {
+			tailSum += sorted[i];
+		}
+		assertEquals(1_000 - sorted[(int) (0.05 * (sorted.length - 1))], parallel.getValueAtRisk(0.95), 1.0);
+		assertEquals(1_000 - tailSum / (sorted.length / 20), parallel.getConditionalValueAtRisk(0.95), 1.0);
+		assertArrayEquals(sequential.getDailyQuantile(0.5), parallel.getDailyQuantile(0.5));
+	}
+
+	@Test
+	void sharedScenariosPriceEachWeightingLikeItsOwnRun() {
+		double[][] weightSets = {{0.6, 0.4}, {0.0, 1.0}, {0.25, 0.75}};
+		SimulationStatistics[] batch = portfolio.performScenarioSimulations(30, 3_000, 1, 13L, weightSets);
+
+		assertEquals(List.of("AAPL", "MSFT"), portfolio.getTickers());
+		for (int p = 0; p < weightSets.length; p++) {
+			Portfolio single = new Portfolio(1_000, Map.of("AAPL", weightSets[p][0], "MSFT", weightSets[p][1]));
+			SimulationStatistics expected = single.performStreamingSimulationsInParallel(30, 3_000, 1, 13L);
+
+			assertEquals(3_000, batch[p].getCount());
+			assertEquals(expected.getMean(), batch[p].getMean(), 1e-9);
+			assertEquals(expected.getStandardDeviation(), batch[p].getStandardDeviation(), 1e-9);
+			assertEquals(expected.getFinalValueQuantile(0.05), batch[p].getFinalValueQuantile(0.05));
+			assertArrayEquals(expected.getSamplePaths().get(0), batch[p].getSamplePaths().get(0));
+			assertNull(batch[p].getDailyQuantile(0.5));
+		}
+	}
+
+	@Test
+	void batchedRunDeliversMaterializedPathsInOrder() {
+		portfolio.performMultipleSimulations(30, 1_500, 9L);
+		List<double[]> expected = portfolio.getAllSimulations();
+		List<double[]> delivered = new ArrayList<>();
+
+		SimulationStatistics statistics = portfolio.performBatchedSimulations(30, 1_500, 600, 9L,
+				(firstIndex, paths, count, running) -> {
+					assertEquals(delivered.size(), firstIndex);
+					for (int i = 0; i < count; i++) {
+						delivered.add(paths[i].clone());
+					}
+				});
+
+		assertEquals(1_500, statistics.getCount());
+		assertEquals(expected.size(), delivered.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertArrayEquals(expected.get(i), delivered.get(i));
+		}
+	}
+
+	@Test
+	void adaptiveRunStopsOnceTargetErrorIsReached() {
+		ConvergenceCriteria criteria = new ConvergenceCriteria(0.001, 1_000_000, 60_000);
+		SimulationStatistics statistics = portfolio.performAdaptiveSimulations(30, criteria, 0, 11L);
+		ConvergenceReport report = portfolio.getConvergenceReport();
+
+		assertEquals(ConvergenceReport.StopReason.CONVERGED, report.getStopReason());
+		assertTrue(report.getAchievedRelativeError() <= 0.001);
+		assertTrue(statistics.getCount() < 1_000_000);
+		assertEquals(statistics.getMean(), portfolio.performAdaptiveSimulations(30, criteria, 0, 11L).getMean());
+	}
+
+	@Test
+	void progressCountsEveryPathAndCancelsTheRun() {
+		SimulationProgress progress = new SimulationProgress();
+		portfolio.setProgress(progress);
+		SimulationStatistics statistics = portfolio.performStreamingSimulationsInParallel(30, 2_000, 0, 5L);
+
+		assertEquals(2_000, progress.getCompletedPaths());
+		assertEquals(statistics.getMean(), progress.getCurrentEstimate(), 1e-9);
+
+		progress.cancel();
+		assertThrows(CancellationException.class, () -> portfolio.performStreamingSimulationsInParallel(30, 2_000, 0, 5L));
+	}
+
+	@Test
+	void appendedPricesGiveTheSameStatisticsAndModelAsARecompute() {
+		String[] tickers = {"AAPL", "MSFT"};
+		PriceSeries[] series = new PriceSeries[tickers.length];
+		StockStatistics[] windows = new StockStatistics[tickers.length];
+		for (int s = 0; s < tickers.length; s++) {
+			series[s] = StockDataCache.getInstance().get(tickers[s]);
+			windows[s] = series[s].getStatistics().withLookback(60);
+		}
+		CorrelatedModel.forStatistics(windows);
+		for (int day = 1; day <= 30; day++) {
+			for (int s = 0; s < tickers.length; s++) {
+				PriceSeries current = series[s];
+				double price = current.getLastPrice() * (1 + 0.01 * Math.sin(day + s));
+				series[s] = current.append(current.getDataVersion() + 1, current.getEpochDay(current.size() - 1) + 1, price);
+				windows[s] = series[s].getStatistics().withLookback(60);
+			}
+			CorrelatedModel.forStatistics(windows);
+		}
+		CorrelatedModel extended = CorrelatedModel.forStatistics(windows);
+
+		StockStatistics[] recomputed = new StockStatistics[tickers.length];
+		for (int s = 0; s < tickers.length; s++) {
+			PriceSeries copy = copyOf(series[s]);
+			recomputed[s] = copy.getStatistics().withLookback(60);
+			assertEquals(copy.getStatistics().getMean(), series[s].getStatistics().getMean(), 1e-12);
+			assertEquals(copy.getStatistics().getStdDev(), series[s].getStatistics().getStdDev(), 1e-12);
+			assertEquals(60, windows[s].getReturnCount());
+			assertEquals(copy.getStatistics().getReturnCount(),
+					series[s].getStatistics().withLookback(Integer.MAX_VALUE).getReturnCount());
+			assertEquals(recomputed[s].getMean(), windows[s].getMean(), 1e-12);
+			assertEquals(recomputed[s].getStdDev(), windows[s].getStdDev(), 1e-12);
+		}
+		CorrelatedModel estimated = CorrelatedModel.forStatistics(recomputed);
+		assertEquals(estimated.getObservations(), extended.getObservations());
+		for (int i = 0; i < tickers.length; i++) {
+			for (int j = 0; j < tickers.length; j++) {
+				assertEquals(estimated.getCovariance(i, j), extended.getCovariance(i, j), 1e-15);
+			}
+		}
+	}
+
+	private static PriceSeries copyOf(PriceSeries series) {
+		int[] epochDays = new int[series.size()];
+		double[] prices = new double[series.size()];
+		double[] dailyChanges = new double[series.size()];
+		for (int i = 0; i < series.size(); i++) {
+			epochDays[i] = series.getEpochDay(i);
+			prices[i] = series.getPrice(i);
+			dailyChanges[i] = series.getDailyChange(i);
+		}
+		return new PriceSeries(series.getTicker(), -series.getDataVersion(), epochDays, prices, dailyChanges);
+	}
+
+	// Under the simulated GBM model E[V_T] = sum_i C w_i exp(T (mu_i + sigma_i^2 / 2)) exactly
+	@ParameterizedTest
+	@EnumSource(VarianceReduction.class)
+	void varianceReducedEstimateMatchesAnalyticMean(VarianceReduction varianceReduction) {
+		int days = 60;
+		CorrelatedModel model = portfolio.getModel();
+		double expected = 600 * Math.exp(days * (model.getMean(0) + model.getCovariance(0, 0) / 2))
+				+ 400 * Math.exp(days * (model.getMean(1) + model.getCovariance(1, 1) / 2));
+
+		portfolio.setVarianceReduction(VarianceReduction.NONE);
+		double plainStandardError = portfolio.performStreamingSimulations(days, 8_192, 0, 3L).getEstimator().getStandardError();
+		portfolio.setVarianceReduction(varianceReduction);
+		MeanEstimator estimator = portfolio.performStreamingSimulationsInParallel(days, 8_192, 0, 3L).getEstimator();
+
+		assertEquals(expected, estimator.getEstimate(), 5 * estimator.getStandardError());
+		assertTrue(estimator.getStandardError() <= plainStandardError);
+	}
+}
@@ -0,0 +1,90 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceStoreTest {
+
+	private static final String CSV = """
+			Date,Adj Close,AdjClose_dailyChange,Close_dailyChange
+			2024-01-02 00:00:00+00:00,100.0,,
+			2024-01-03 00:00:00+00:00,101.0,0.01,0.01
+			2024-01-04 00:00:00+00:00,99.99,-0.01,-0.01
+			""";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void importedStoreReadsBackAsTheCsvParses() throws IOException {
+		Path csvOnly = Files.createDirectory(directory.resolve("csv"));
+		Path csv = Files.copy(Path.of(StockDataCache.getDataDirectory(), "AAPL.csv"), csvOnly.resolve("AAPL.csv"));
+		File store = directory.resolve("AAPL" + PriceStore.EXTENSION).toFile();
+
+		int rows = PriceStoreImporter.importCsv(csv.toFile(), store);
+		PriceSeries parsed = new StockDataCache(csvOnly.toFile(), 4, 0).get("AAPL");
+		PriceSeries mapped = PriceStore.read("AAPL", store);
+
+		assertTrue(rows > 0);
+		assertEquals(parsed.size(), rows);
+		assertEquals(rows, mapped.size());
+		assertEquals(store.lastModified(), mapped.getDataVersion());
+		for (int i = 0; i < rows; i++) {
+			assertEquals(parsed.getEpochDay(i), mapped.getEpochDay(i));
+			assertEquals(parsed.getPrice(i), mapped.getPrice(i));
+			assertEquals(parsed.getDailyChange(i), mapped.getDailyChange(i));
+		}
+	}
+
+	@Test
+	void importOrdersRowsByDateKeepingTheLastOfADuplicatedDate() throws IOException {
+		Path csv = Files.writeString(directory.resolve("TEST.csv"), """
+				Date,Adj Close,AdjClose_dailyChange,Close_dailyChange
+				2024-01-04 00:00:00+00:00,104.0,,
+				2024-01-02 00:00:00+00:00,102.0,,
+
+				2024-01-04 00:00:00+00:00,105.0,,
+				""");
+		File store = directory.resolve("TEST" + PriceStore.EXTENSION).toFile();
+
+		assertEquals(2, PriceStoreImporter.importCsv(csv.toFile(), store));
+		PriceSeries mapped = PriceStore.read("TEST", store);
+		assertEquals(19_724, mapped.getEpochDay(0));
+		assertEquals(102.0, mapped.getPrice(0));
+		assertEquals(19_726, mapped.getEpochDay(1));
+		assertEquals(105.0, mapped.getPrice(1));
+		assertTrue(Double.isNaN(mapped.getDailyChange(1)));
+	}
+
+	@Test
+	void storeOlderThanItsCsvFallsBackToTheCsv() throws IOException {
+		File csv = Files.writeString(directory.resolve("TEST.csv"), CSV).toFile();
+		File store = directory.resolve("TEST" + PriceStore.EXTENSION).toFile();
+		assertEquals(1, PriceStoreImporter.importStale(directory.toFile()));
+		assertEquals(0, PriceStoreImporter.importStale(directory.toFile()));
+
+		// The CSV gains a row; while the store is not older it is still the source
+		Files.writeString(csv.toPath(), CSV + "2024-01-05 00:00:00+00:00,98.0,-0.02,-0.02\n");
+		assertTrue(csv.setLastModified(store.lastModified() - 10_000));
+		PriceSeries fromStore = new StockDataCache(directory.toFile(), 4, 0).get("TEST");
+		assertEquals(3, fromStore.size());
+		assertEquals(store.lastModified(), fromStore.getDataVersion());
+
+		assertTrue(csv.setLastModified(store.lastModified() + 10_000));
+		PriceSeries fromCsv = new StockDataCache(directory.toFile(), 4, 0).get("TEST");
+		assertEquals(4, fromCsv.size());
+		assertEquals(98.0, fromCsv.getLastPrice());
+		assertEquals(csv.lastModified(), fromCsv.getDataVersion());
+
+		assertEquals(1, PriceStoreImporter.importStale(directory.toFile()));
+		assertEquals(4, PriceStore.read("TEST", store).size());
+	}
+}
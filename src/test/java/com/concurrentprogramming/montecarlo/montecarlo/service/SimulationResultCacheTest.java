@@ -0,0 +1,150 @@
+package com.concurrentprogramming.montecarlo.montecarlo.service;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.PortfolioRequest;
+import com.concurrentprogramming.montecarlo.montecarlo.model.StockDataCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class SimulationResultCacheTest {
+
+	private final AtomicInteger runs = new AtomicInteger();
+
+	@Test
+	void identicalRequestsInFlightShareOneRun() {
+		SimulationResultCache cache = new SimulationResultCache(16, 1_000, 60);
+		CountDownLatch release = new CountDownLatch(1);
+		int callers = 8;
+
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			ExecutorService executor = Executors.newFixedThreadPool(callers);
+			try {
+				List<Future<String>> results = new ArrayList<>();
+				for (int i = 0; i < callers; i++) {
+					results.add(executor.submit(() -> cache.get("key", 10, () -> {
+						runs.incrementAndGet();
+						try {
+							release.await();
+						} catch (InterruptedException e) {
+							throw new IllegalStateException(e);
+						}
+						return "result";
+					})));
+				}
+				while (cache.getStats().getSharedRuns() < callers - 1) {
+					Thread.sleep(10);
+				}
+				release.countDown();
+				for (Future<String> result : results) {
+					assertEquals("result", result.get());
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+		});
+		assertEquals(1, runs.get());
+		assertEquals(1, cache.getStats().getMisses());
+		assertEquals(callers - 1, cache.getStats().getSharedRuns());
+
+		assertEquals("result", cache.get("key", 10, this::run));
+		assertEquals(1, cache.getStats().getHits());
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	void failedRunIsNotCached() {
+		SimulationResultCache cache = new SimulationResultCache(16, 1_000, 60);
+
+		assertThrows(IllegalStateException.class, () -> cache.get("key", 10, () -> {
+			throw new IllegalStateException("simulation failed");
+		}));
+		assertEquals(0, cache.getStats().getSize());
+		assertEquals(0, cache.getStats().getBytes());
+
+		assertEquals("run 1", cache.get("key", 10, this::run));
+		assertEquals("run 1", cache.get("key", 10, this::run));
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	void expiredResultIsRecomputed() {
+		SimulationResultCache expiring = new SimulationResultCache(16, 1_000, 0);
+
+		assertEquals("run 1", expiring.get("key", 10, this::run));
+		assertEquals("run 2", expiring.get("key", 10, this::run));
+		assertEquals(1, expiring.getStats().getExpirations());
+		assertEquals(0, expiring.getStats().getHits());
+		assertEquals(1, expiring.getStats().getSize());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedUntilBytesFit() {
+		SimulationResultCache cache = new SimulationResultCache(16, 400, 60);
+		for (String key : List.of("a", "b", "c", "d")) {
+			cache.get(key, 100, this::run);
+		}
+		cache.get("a", 100, this::run);
+		assertEquals(4, runs.get());
+
+		cache.get("e", 100, this::run);
+		assertEquals(4, cache.getStats().getSize());
+		assertEquals(400, cache.getStats().getBytes());
+		assertEquals(1, cache.getStats().getEvictions());
+		assertEquals("run 1", cache.get("a", 100, this::run));
+		assertEquals("run 6", cache.get("b", 100, this::run));
+
+		// More than a quarter of the bound: run every time and never cached
+		assertEquals("run 7", cache.get("large", 101, this::run));
+		assertEquals("run 8", cache.get("large", 101, this::run));
+		assertEquals(2, cache.getStats().getUncached());
+		assertEquals(400, cache.getStats().getBytes());
+	}
+
+	@Test
+	void keyChangesWithDataVersionAndSeed(@TempDir Path directory) throws IOException {
+		Files.writeString(directory.resolve("TEST.csv"), """
+				Date,Adj Close,AdjClose_dailyChange,Close_dailyChange
+				2024-01-02 00:00:00+00:00,100.0,,
+				2024-01-03 00:00:00+00:00,101.0,0.01,0.01
+				""");
+		StockDataCache dataCache = new StockDataCache(directory.toFile(), 4, 0);
+		PortfolioRequest request = new PortfolioRequest();
+		request.setStockWeights(new HashMap<>(Map.of("TEST", 1.0)));
+		request.setDaysToPredict(10);
+		request.setNumSimulations(100);
+		request.setSeed(1L);
+		String key = SimulationResultCache.keyFor("summary", request, dataCache);
+		assertEquals(key, SimulationResultCache.keyFor("summary", request, dataCache));
+
+		request.setSeed(2L);
+		assertNotEquals(key, SimulationResultCache.keyFor("summary", request, dataCache));
+		request.setSeed(1L);
+		assertNotEquals(key, SimulationResultCache.keyFor("simulate", request, dataCache));
+
+		dataCache.append("TEST", LocalDate.of(2024, 1, 4), 102.0);
+		assertNotEquals(key, SimulationResultCache.keyFor("summary", request, dataCache));
+	}
+
+	private String run() {
+		return "run " + runs.incrementAndGet();
+	}
+}
@@ -0,0 +1,74 @@
+package com.concurrentprogramming.montecarlo.montecarlo.service;
+
+import com.concurrentprogramming.montecarlo.montecarlo.model.ExecutionMode;
+import com.concurrentprogramming.montecarlo.montecarlo.model.PortfolioRequest;
+import com.concurrentprogramming.montecarlo.montecarlo.model.RunTiming;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationResult;
+import com.concurrentprogramming.montecarlo.montecarlo.model.SimulationRun;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class SimulationRunRepositoryTest {
+
+	private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+			.setType(EmbeddedDatabaseType.H2)
+			.generateUniqueName(true)
+			.addScript("schema.sql")
+			.build();
+	private final SimulationRunRepository repository = new SimulationRunRepository(
+			new JdbcTemplate(database), new DataSourceTransactionManager(database), 3, 16, 8);
+
+	@AfterEach
+	void shutdown() throws InterruptedException {
+		repository.shutdown();
+		database.shutdown();
+	}
+
+	@Test
+	void recordedRunIsWrittenInTheBackgroundAndFoundByTickerSet() {
+		PortfolioRequest request = new PortfolioRequest();
+		request.setInitialCapital(100);
+		request.setDaysToPredict(4);
+		request.setSeed(1L);
+		request.setStockWeights(new HashMap<>(Map.of("MSFT", 0.5, "AAPL", 0.5)));
+		List<double[]> paths = new ArrayList<>();
+		for (int i = 0; i <= 100; i++) {
+			paths.add(new double[]{100, 100, 100, 100, 100 + i});
+		}
+		repository.record("simulate", request, new SimulationResult(
+				new RunTiming(ExecutionMode.PARALLEL, 150, 29, 10), 2.9, paths));
+
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			while (repository.getWritten() == 0) {
+				assertEquals(0, repository.getFailed());
+				Thread.sleep(10);
+			}
+		});
+		List<SimulationRun> runs = repository.findRuns(List.of("MSFT", "AAPL"), null, null, null, 10);
+		assertEquals(1, runs.size());
+		assertEquals(List.of("AAPL", "MSFT"), runs.get(0).getTickers().stream().map(t -> t.getTicker()).toList());
+		assertNull(runs.get(0).getBands());
+		assertEquals(0, repository.findRuns(List.of("AAPL"), null, null, null, 10).size());
+
+		SimulationRun run = repository.findRun(runs.get(0).getId());
+		assertEquals(List.of(0, 2, 4), run.getBands().stream().map(b -> b.getDay()).toList());
+		assertEquals(105.0, run.getBands().get(2).getP05(), 1e-9);
+		assertEquals(150.0, run.getBands().get(2).getP50(), 1e-9);
+		assertEquals(200.0, run.getMaxFinalValue(), 1e-9);
+	}
+}
@@ -0,0 +1,41 @@
+package com.concurrentprogramming.montecarlo.montecarlo.model;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD version of the log-return transform and exp step. It uses the incubating Vector API, so it is only built with
+// -Pvector and only loaded when enabled and the JVM was started with --add-modules jdk.incubator.vector (see
+// MonteCarloSimulation.VECTOR_KERNEL).
+final class VectorPriceKernel implements PriceKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void growthFactors(double[] values, int from, int to, double mean, double stdDev) {
+        int i = from;
+        int upperBound = from + SPECIES.loopBound(to - from);
+        for (; i < upperBound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, values, i)
+                    .fma(stdDev, mean)
+                    .lanewise(VectorOperators.EXP)
+                    .intoArray(values, i);
+        }
+        for (; i < to; i++) {
+            values[i] = Math.exp(values[i] * stdDev + mean);
+        }
+    }
+
+    @Override
+    public void exp(double[] values, int from, int to) {
+        int i = from;
+        int upperBound = from + SPECIES.loopBound(to - from);
+        for (; i < upperBound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, values, i)
+                    .lanewise(VectorOperators.EXP)
+                    .intoArray(values, i);
+        }
+        for (; i < to; i++) {
+            values[i] = Math.exp(values[i]);
+        }
+    }
+}